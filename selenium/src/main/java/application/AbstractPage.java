@@ -6,6 +6,10 @@ import org.openqa.selenium.By;
 
 import application.components.header.Header;
 import application.support.SeleniumSupport;
+import application.support.metrics.PageMetrics;
+import application.support.metrics.PageMetricsCollector;
+import application.support.metrics.PageMetricsRegistry;
+import application.support.watchdog.SessionHungException;
 
 /**
  * Abstract page for common page elements and methods
@@ -15,10 +19,12 @@ import application.support.SeleniumSupport;
 public abstract class AbstractPage extends SeleniumSupport {
 
   private static final Logger LOG = LogManager.getLogger(SeleniumSupport.class.getName());
+  private static final PageMetricsCollector METRICS_COLLECTOR = new PageMetricsCollector();
   private  final By ACCEPT_ALL = By.cssSelector("[id='onetrust-accept-btn-handler']");
   private String siteBaseUrl = "https://doodle.com/";
 
   private Header header;
+  private boolean metricsCollected;
 
   public AbstractPage() {
     this.header = new Header();
@@ -29,14 +35,24 @@ public abstract class AbstractPage extends SeleniumSupport {
   }
 
   /**
-   * Opens page in the browser.
+   * Opens page in the browser. When the session hangs while loading the page, it is opened once more on the fresh session that replaces it. Metrics of the
+   * page are collected by the readiness check that follows, {@link #isOpened()} or {@link #isLoaded()}, or right away for a page without a page identifier.
    *
    * @return <code>true</code> if the page was opened successfully, <code>false</code> otherwise
    */
   public void open() {
     String pageUrl = getPageUrl();
     LOG.debug("Opening page on URL '{}'", pageUrl);
-    getDriver().get(pageUrl);
+    try {
+      getDriver().get(pageUrl);
+    } catch (SessionHungException e) {
+      LOG.warn("Session hung opening page on URL '{}', opening it again on a fresh session", pageUrl, e);
+      getDriver().get(pageUrl);
+    }
+    metricsCollected = false;
+    if (getPageIdentifier() == null) {
+      collectMetrics();
+    }
   }
 
   /**
@@ -67,7 +83,11 @@ public abstract class AbstractPage extends SeleniumSupport {
     if (shortWaitTillVisible(ACCEPT_ALL)) {
       findElement(ACCEPT_ALL).click();
     }
-    return currentUrl.equals(pageUrl);
+    boolean opened = currentUrl.equals(pageUrl);
+    if (opened) {
+      collectMetrics();
+    }
+    return opened;
   }
 
   /**
@@ -83,6 +103,25 @@ public abstract class AbstractPage extends SeleniumSupport {
    * @return {@code true} if {@code this} page is loaded, {@code false} otherwise
    */
   public boolean isLoaded() {
-    return longWaitTillVisible(getPageIdentifier());
+    boolean loaded = longWaitTillVisible(getPageIdentifier());
+    if (loaded) {
+      collectMetrics();
+    }
+    return loaded;
+  }
+
+  /**
+   * Collects the browser-side performance metrics of {@code this} page into the {@link PageMetricsRegistry}, at most once per navigation. Called once the page
+   * passed a readiness check, so paint and layout shift metrics cover the rendered page.
+   */
+  protected void collectMetrics() {
+    if (metricsCollected || !METRICS_COLLECTOR.isEnabled()) {
+      return;
+    }
+    metricsCollected = true;
+    PageMetrics metrics = METRICS_COLLECTOR.collect(getDriver());
+    if (metrics != null) {
+      PageMetricsRegistry.getInstance().record(getClass(), metrics);
+    }
   }
 }
@@ -1,9 +1,28 @@
 package application;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import application.support.trace.RecordingCommandExecutor;
+import application.support.trace.ReplayCommandExecutor;
+import application.support.watchdog.SessionHungException;
+import application.support.watchdog.SessionWatchdog;
+import application.support.watchdog.WatchdogCommandExecutor;
 
 /**
  * Web driver factory class
@@ -12,7 +31,14 @@ import org.openqa.selenium.chrome.ChromeDriver;
  */
 public class WebDriverFactory {
 
+  private static final Logger LOG = LogManager.getLogger(WebDriverFactory.class.getName());
   private static final WebDriverFactory instance = new WebDriverFactory();
+  private static final String TRACE_RECORD_PROPERTY = "webdriver.trace.record";
+  private static final String TRACE_REPLAY_PROPERTY = "webdriver.trace.replay";
+  private static final String TRACE_REPLAY_SCALE_PROPERTY = "webdriver.trace.replay.scale";
+
+  private final Map<String, AtomicInteger> traceCounts = new ConcurrentHashMap<>();
+  private Path recordDirectory;
 
   private WebDriverFactory() {}
 
@@ -25,8 +51,12 @@ public class WebDriverFactory {
   public WebDriver getDriver(String browser) {
     WebDriver driver = null;
     setDriver(browser);
+    if (isKilled(threadedDriver.get())) {
+      LOG.warn("Replacing session killed by the watchdog with a fresh one");
+      threadedDriver.set(null);
+    }
     if (threadedDriver.get() == null) {
-      driver = new ChromeDriver();
+      driver = createDriver();
       threadedDriver.set(driver);
       threadedDriver.get().manage().timeouts().implicitlyWait(15, TimeUnit.SECONDS);
       threadedDriver.get().manage().window().maximize();
@@ -34,9 +64,111 @@ public class WebDriverFactory {
     return threadedDriver.get();
   }
 
+  /**
+   * Quits the driver of the current thread, if it has one. A thread whose tests were all claimed by other shards never creates a driver.
+   */
   public void quitDriver() {
-    threadedDriver.get().quit();
-    threadedDriver.set(null);
+    WebDriver driver = threadedDriver.get();
+    if (driver == null) {
+      return;
+    }
+    try {
+      driver.quit();
+    } catch (SessionHungException e) {
+      LOG.warn("Session hung on quit and was killed by the watchdog", e);
+    } finally {
+      threadedDriver.set(null);
+    }
+  }
+
+  /**
+   * Creates a Chrome session watched by the {@link SessionWatchdog}. The session gets its own profile directory so the watchdog can find and kill its browser
+   * processes. With {@code -Dwebdriver.trace.record=<directory>} every command of the session is recorded to a trace file in that directory, and with
+   * {@code -Dwebdriver.trace.replay=<file or directory>} the session is replayed from recorded traces instead, scaling the recorded latencies by
+   * {@code -Dwebdriver.trace.replay.scale} (default 1).
+   *
+   * @return the new driver
+   */
+  private WebDriver createDriver() {
+    try {
+      String replay = System.getProperty(TRACE_REPLAY_PROPERTY);
+      if (replay != null) {
+        double scale = Double.parseDouble(System.getProperty(TRACE_REPLAY_SCALE_PROPERTY, "1"));
+        return new RemoteWebDriver(new ReplayCommandExecutor(replayTrace(Paths.get(replay)), scale), new ChromeOptions());
+      }
+      Path profileDirectory = Files.createTempDirectory("chrome-profile-");
+      ChromeOptions options = new ChromeOptions();
+      options.addArguments("--user-data-dir=" + profileDirectory);
+      CommandExecutor executor = SessionWatchdog.getInstance().watch(ChromeDriverService.createDefaultService(), profileDirectory);
+      String record = System.getProperty(TRACE_RECORD_PROPERTY);
+      if (record != null) {
+        executor = new RecordingCommandExecutor(executor, recordDirectory(Paths.get(record)).resolve(nextTraceName()));
+      }
+      return new RemoteWebDriver(executor, options);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to create web driver", e);
+    }
+  }
+
+  /**
+   * Returns the directory this JVM records its traces to: the given one, or its {@code shard-<index>} subdirectory when the suite is sharded. Refuses a
+   * directory that already holds traces, which would otherwise be mixed up with the new ones on replay.
+   */
+  private synchronized Path recordDirectory(Path record) throws IOException {
+    if (recordDirectory == null) {
+      Path directory = laneDirectory(record);
+      if (Files.isDirectory(directory)) {
+        try (Stream<Path> files = Files.list(directory)) {
+          if (files.findAny().isPresent()) {
+            throw new IllegalStateException(String.format("Trace directory %s is not empty, record to a new one", directory));
+          }
+        }
+      }
+      recordDirectory = Files.createDirectories(directory);
+    }
+    return recordDirectory;
+  }
+
+  /**
+   * Returns the trace to replay for the next session of the current thread: the given file, or the trace recorded by the same shard and thread in the given
+   * directory, in the order they were recorded.
+   */
+  private Path replayTrace(Path replay) {
+    if (!Files.isDirectory(replay)) {
+      return replay;
+    }
+    Path trace = laneDirectory(replay).resolve(nextTraceName());
+    if (!Files.isRegularFile(trace)) {
+      throw new IllegalStateException(String.format("No trace %s left to replay", trace));
+    }
+    return trace;
+  }
+
+  private Path laneDirectory(Path directory) {
+    String shardIndex = System.getProperty("shard.index");
+    return shardIndex != null ? directory.resolve("shard-" + shardIndex) : directory;
+  }
+
+  /**
+   * Returns the name of the next trace of the current thread. Traces are named by thread, so parallel threads replay the sessions they recorded.
+   */
+  private String nextTraceName() {
+    String lane = Thread.currentThread().getName().replaceAll("\\W", "_");
+    return String.format("trace-%s-%03d.jsonl", lane, traceCounts.computeIfAbsent(lane, name -> new AtomicInteger()).incrementAndGet());
+  }
+
+  private boolean isKilled(WebDriver driver) {
+    if (!(driver instanceof RemoteWebDriver)) {
+      return false;
+    }
+    CommandExecutor executor = ((RemoteWebDriver) driver).getCommandExecutor();
+    if (executor instanceof ReplayCommandExecutor) {
+      return ((ReplayCommandExecutor) executor).isKilled();
+    }
+    if (executor instanceof RecordingCommandExecutor) {
+      executor = ((RecordingCommandExecutor) executor).getDelegate();
+    }
+    return executor instanceof WatchdogCommandExecutor && ((WatchdogCommandExecutor) executor).isKilled();
   }
 
   private void setDriver(String browser) {
@@ -25,6 +25,8 @@ import org.openqa.selenium.support.ui.Wait;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
 import application.WebDriverFactory;
+import application.support.coverage.CoverageRecorder;
+import application.support.watchdog.SessionHungException;
 
 /**
  * Selenium support class
@@ -38,6 +40,7 @@ public class SeleniumSupport {
   private static final Logger LOG = LogManager.getLogger(SeleniumSupport.class.getName());
 
   protected WebDriver getDriver() {
+    CoverageRecorder.getInstance().recordClass(getClass());
     return WebDriverFactory.getInstance().getDriver("chrome");
   }
 
@@ -70,8 +73,11 @@ public class SeleniumSupport {
    */
   public Optional<WebElement> locateElement(By locator) {
     WebElement element;
+    CoverageRecorder.getInstance().recordLocator(locator);
     try {
       element = getDriver().findElement(locator);
+    } catch (SessionHungException e) {
+      throw e;
     } catch (Exception e) {
       element = null;
     }
@@ -200,6 +206,7 @@ public class SeleniumSupport {
   }
 
   protected WebElement doFindElementWaitTillVisible(By locator, WebDriverWait waiter) {
+    CoverageRecorder.getInstance().recordLocator(locator);
     try {
       LOG.trace("Finding element with locator {} with waiter {}", locator, waiter);
       return waiter.until(ExpectedConditions.visibilityOfElementLocated(locator));
@@ -291,6 +298,7 @@ public class SeleniumSupport {
    * @return {@code true} if the element is not displayed or the element doesn't exist or stale element, {@code false} otherwise
    */
   public boolean waitTillInvisible(By locator) {
+    CoverageRecorder.getInstance().recordLocator(locator);
     try {
       return getLongWait().until(ExpectedConditions.invisibilityOfElementLocated(locator));
     } catch (TimeoutException e) {
@@ -308,6 +316,7 @@ public class SeleniumSupport {
   public List<WebElement> findElements(By locator) {
     List<WebElement> elements = Collections.emptyList();
     int attempts = 0;
+    CoverageRecorder.getInstance().recordLocator(locator);
     while (attempts < 50) {
       attempts++;
       elements = getDriver().findElements(locator);
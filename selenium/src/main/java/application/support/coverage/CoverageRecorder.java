@@ -0,0 +1,105 @@
+package application.support.coverage;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.By;
+
+/**
+ * Records which page objects, components and {@link By} locators each test touches at runtime. A test is tracked between {@link #startTest(String)} and
+ * {@link #finishTest()} on the same thread; calls made outside of a test are ignored.
+ *
+ * @author srdjan
+ */
+public class CoverageRecorder {
+
+  private static final CoverageRecorder instance = new CoverageRecorder();
+
+  private final ThreadLocal<TestCoverage> current = new ThreadLocal<TestCoverage>();
+  private final Map<String, TestCoverage> coverage = new ConcurrentHashMap<>();
+
+  private CoverageRecorder() {}
+
+  public static CoverageRecorder getInstance() {
+    return instance;
+  }
+
+  public void startTest(String testId) {
+    TestCoverage testCoverage = new TestCoverage();
+    current.set(testCoverage);
+    coverage.put(testId, testCoverage);
+  }
+
+  public void finishTest() {
+    current.remove();
+  }
+
+  /**
+   * Records that the current test used the given class and, since changing them changes its behaviour too, all of its superclasses.
+   *
+   * @param type the page object or component class
+   */
+  public void recordClass(Class<?> type) {
+    TestCoverage testCoverage = current.get();
+    if (testCoverage != null && !testCoverage.classes.contains(type.getName())) {
+      for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+        testCoverage.classes.add(c.getName());
+      }
+    }
+  }
+
+  /**
+   * Records that the current test looked up the given locator.
+   *
+   * @param locator the locator
+   */
+  public void recordLocator(By locator) {
+    TestCoverage testCoverage = current.get();
+    if (testCoverage != null && locator != null) {
+      testCoverage.locators.add(locator.toString());
+    }
+  }
+
+  /**
+   * Returns the coverage recorded so far.
+   *
+   * @return the coverage by test id
+   */
+  public Map<String, TestCoverage> getCoverage() {
+    return Collections.unmodifiableMap(coverage);
+  }
+
+  /**
+   * Classes and locators used by one test.
+   */
+  public static class TestCoverage {
+
+    private final Set<String> classes = ConcurrentHashMap.newKeySet();
+    private final Set<String> locators = ConcurrentHashMap.newKeySet();
+
+    TestCoverage() {
+    }
+
+    /**
+     * Creates the coverage of a test recorded elsewhere.
+     *
+     * @param classes the names of the classes the test used
+     * @param locators the locators the test looked up, as {@code By.toString()}
+     */
+    public TestCoverage(Collection<String> classes, Collection<String> locators) {
+      this.classes.addAll(classes);
+      this.locators.addAll(locators);
+    }
+
+    public Set<String> getClasses() {
+      return Collections.unmodifiableSet(classes);
+    }
+
+    public Set<String> getLocators() {
+      return Collections.unmodifiableSet(locators);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package application.support.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Performance budget of a page. Only the limits that are set are checked.
+ *
+ * @author srdjan
+ */
+public class PageBudget {
+
+  private long maxTimeToFirstByte = -1;
+  private long maxLoadEventEnd = -1;
+  private long maxLargestContentfulPaint = -1;
+  private double maxCumulativeLayoutShift = -1;
+  private long maxResourceTransferSize = -1;
+  private long maxUsedJsHeapSize = -1;
+
+  public PageBudget maxTimeToFirstByte(long millis) {
+    this.maxTimeToFirstByte = millis;
+    return this;
+  }
+
+  public PageBudget maxLoadEventEnd(long millis) {
+    this.maxLoadEventEnd = millis;
+    return this;
+  }
+
+  public PageBudget maxLargestContentfulPaint(long millis) {
+    this.maxLargestContentfulPaint = millis;
+    return this;
+  }
+
+  public PageBudget maxCumulativeLayoutShift(double shift) {
+    this.maxCumulativeLayoutShift = shift;
+    return this;
+  }
+
+  public PageBudget maxResourceTransferSize(long bytes) {
+    this.maxResourceTransferSize = bytes;
+    return this;
+  }
+
+  public PageBudget maxUsedJsHeapSize(long bytes) {
+    this.maxUsedJsHeapSize = bytes;
+    return this;
+  }
+
+  /**
+   * Checks the given metrics against {@code this} budget.
+   *
+   * @param metrics the metrics to check
+   * @return a description of every exceeded limit, empty if the metrics are within budget
+   */
+  public List<String> check(PageMetrics metrics) {
+    List<String> violations = new ArrayList<>();
+    check(violations, metrics, "time to first byte", metrics.getTimeToFirstByte(), maxTimeToFirstByte);
+    check(violations, metrics, "load event end", metrics.getLoadEventEnd(), maxLoadEventEnd);
+    check(violations, metrics, "largest contentful paint", metrics.getLargestContentfulPaint(), maxLargestContentfulPaint);
+    check(violations, metrics, "cumulative layout shift", metrics.getCumulativeLayoutShift(), maxCumulativeLayoutShift);
+    check(violations, metrics, "resource transfer size", metrics.getResourceTransferSize(), maxResourceTransferSize);
+    check(violations, metrics, "used JS heap size", metrics.getUsedJsHeapSize(), maxUsedJsHeapSize);
+    return violations;
+  }
+
+  private void check(List<String> violations, PageMetrics metrics, String name, double actual, double max) {
+    if (max >= 0 && actual > max) {
+      violations.add(String.format("%s of %s is %s, budget is %s", name, metrics.getUrl(), actual, max));
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package application.support.metrics;
+
+import java.util.Map;
+
+/**
+ * Browser-side performance metrics of one page navigation. Times are in milliseconds from the start of the navigation, sizes in bytes. A value of {@code -1}
+ * means the browser did not report it.
+ *
+ * @author srdjan
+ */
+public class PageMetrics {
+
+  private final String url;
+  private final long timeToFirstByte;
+  private final long domContentLoaded;
+  private final long loadEventEnd;
+  private final long resourceCount;
+  private final long resourceTransferSize;
+  private final long largestContentfulPaint;
+  private final double cumulativeLayoutShift;
+  private final long usedJsHeapSize;
+
+  PageMetrics(Map<String, Object> values) {
+    this.url = String.valueOf(values.get("url"));
+    this.timeToFirstByte = toLong(values.get("ttfb"));
+    this.domContentLoaded = toLong(values.get("domContentLoaded"));
+    this.loadEventEnd = toLong(values.get("load"));
+    this.resourceCount = toLong(values.get("resourceCount"));
+    this.resourceTransferSize = toLong(values.get("resourceTransferSize"));
+    this.largestContentfulPaint = toLong(values.get("lcp"));
+    Object cls = values.get("cls");
+    this.cumulativeLayoutShift = cls instanceof Number ? ((Number) cls).doubleValue() : -1;
+    this.usedJsHeapSize = toLong(values.get("usedJsHeapSize"));
+  }
+
+  private static long toLong(Object value) {
+    return value instanceof Number ? Math.round(((Number) value).doubleValue()) : -1;
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  public long getTimeToFirstByte() {
+    return timeToFirstByte;
+  }
+
+  public long getDomContentLoaded() {
+    return domContentLoaded;
+  }
+
+  public long getLoadEventEnd() {
+    return loadEventEnd;
+  }
+
+  public long getResourceCount() {
+    return resourceCount;
+  }
+
+  public long getResourceTransferSize() {
+    return resourceTransferSize;
+  }
+
+  public long getLargestContentfulPaint() {
+    return largestContentfulPaint;
+  }
+
+  public double getCumulativeLayoutShift() {
+    return cumulativeLayoutShift;
+  }
+
+  public long getUsedJsHeapSize() {
+    return usedJsHeapSize;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s [ttfb=%sms, domContentLoaded=%sms, load=%sms, resources=%s (%s bytes), lcp=%sms, cls=%.3f, heap=%s bytes]", url,
+        timeToFirstByte, domContentLoaded, loadEventEnd, resourceCount, resourceTransferSize, largestContentfulPaint, cumulativeLayoutShift, usedJsHeapSize);
+  }
+}
@@ -0,0 +1,79 @@
+package application.support.metrics;
+
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import application.support.watchdog.SessionHungException;
+
+/**
+ * Pulls {@link PageMetrics} from the browser with a single {@code executeScript} round-trip. LCP and CLS are read from buffered performance observers, which
+ * hand over their entries synchronously through {@code takeRecords()}.
+ * <p>
+ * Navigation Timing and LCP describe the last full document load. For a page reached by a client-side route change, where the document URL differs from the
+ * current URL, they are reported as {@code -1} rather than attributed to the wrong page. Resource totals and CLS accumulate over the lifetime of the
+ * document, so for such pages they include everything loaded and shifted since the app was started.
+ *
+ * @author srdjan
+ */
+public class PageMetricsCollector {
+
+  private static final Logger LOG = LogManager.getLogger(PageMetricsCollector.class.getName());
+  private static final String METRICS_PROPERTY = "page.metrics";
+
+  private static final String SCRIPT = "var result = {url: location.href};"
+      + "var nav = performance.getEntriesByType('navigation')[0];"
+      + "var documentLoad = !nav || nav.name === location.href;"
+      + "if (nav && documentLoad) { result.ttfb = nav.responseStart; result.domContentLoaded = nav.domContentLoadedEventEnd; result.load = nav.loadEventEnd; }"
+      + "else if (nav) { result.ttfb = -1; result.domContentLoaded = -1; result.load = -1; }"
+      + "var resources = performance.getEntriesByType('resource');"
+      + "result.resourceCount = resources.length;"
+      + "result.resourceTransferSize = resources.reduce(function(sum, r) { return sum + (r.transferSize || 0); }, 0);"
+      + "function records(type) {"
+      + "  try { var o = new PerformanceObserver(function() {}); o.observe({type: type, buffered: true}); var e = o.takeRecords(); o.disconnect(); return e; }"
+      + "  catch (err) { return null; }"
+      + "}"
+      + "var lcp = records('largest-contentful-paint');"
+      + "if (!documentLoad) { result.lcp = -1; }"
+      + "else if (lcp && lcp.length) { var last = lcp[lcp.length - 1]; result.lcp = last.renderTime || last.loadTime || last.startTime; }"
+      + "var shifts = records('layout-shift');"
+      + "if (shifts) { result.cls = shifts.reduce(function(sum, s) { return s.hadRecentInput ? sum : sum + s.value; }, 0); }"
+      + "if (performance.memory) { result.usedJsHeapSize = performance.memory.usedJSHeapSize; }"
+      + "return result;";
+
+  /**
+   * Checks if metrics should be collected, which can be turned off with {@code -Dpage.metrics=false}.
+   *
+   * @return {@code true} if enabled, {@code false} otherwise
+   */
+  public boolean isEnabled() {
+    return Boolean.parseBoolean(System.getProperty(METRICS_PROPERTY, "true"));
+  }
+
+  /**
+   * Collects the metrics of the page currently opened in the browser.
+   *
+   * @param driver the driver to use
+   * @return the metrics or {@code null} when the browser could not provide them
+   * @throws SessionHungException when the session hung and was killed by the watchdog
+   */
+  @SuppressWarnings("unchecked")
+  public PageMetrics collect(WebDriver driver) {
+    if (!(driver instanceof JavascriptExecutor)) {
+      return null;
+    }
+    try {
+      Object result = ((JavascriptExecutor) driver).executeScript(SCRIPT);
+      return result instanceof Map ? new PageMetrics((Map<String, Object>) result) : null;
+    } catch (SessionHungException e) {
+      throw e;
+    } catch (WebDriverException e) {
+      LOG.warn("Unable to collect page metrics: {}", e.getMessage());
+      return null;
+    }
+  }
+}
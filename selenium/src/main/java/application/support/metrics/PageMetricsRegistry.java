@@ -0,0 +1,67 @@
+package application.support.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keeps the {@link PageMetrics} collected for every page class and the {@link PageBudget}s to check them against.
+ *
+ * @author srdjan
+ */
+public class PageMetricsRegistry {
+
+  private static final Logger LOG = LogManager.getLogger(PageMetricsRegistry.class.getName());
+  private static final PageMetricsRegistry instance = new PageMetricsRegistry();
+
+  private final Map<Class<?>, List<PageMetrics>> metrics = new ConcurrentHashMap<>();
+  private final Map<Class<?>, PageBudget> budgets = new ConcurrentHashMap<>();
+
+  private PageMetricsRegistry() {}
+
+  public static PageMetricsRegistry getInstance() {
+    return instance;
+  }
+
+  public void record(Class<?> pageClass, PageMetrics pageMetrics) {
+    LOG.info("Page metrics of {}: {}", pageClass.getSimpleName(), pageMetrics);
+    metrics.computeIfAbsent(pageClass, key -> new CopyOnWriteArrayList<>()).add(pageMetrics);
+  }
+
+  /**
+   * Returns all metrics collected for the given page class so far.
+   *
+   * @param pageClass the page class
+   * @return the metrics, in order of collection
+   */
+  public List<PageMetrics> getMetrics(Class<?> pageClass) {
+    return Collections.unmodifiableList(metrics.getOrDefault(pageClass, Collections.emptyList()));
+  }
+
+  public void setBudget(Class<?> pageClass, PageBudget budget) {
+    budgets.put(pageClass, budget);
+  }
+
+  /**
+   * Checks all metrics collected for the given page class against its budget.
+   *
+   * @param pageClass the page class
+   * @return a description of every exceeded limit, empty if within budget or when no budget is set
+   */
+  public List<String> getBudgetViolations(Class<?> pageClass) {
+    List<String> violations = new ArrayList<>();
+    PageBudget budget = budgets.get(pageClass);
+    if (budget != null) {
+      for (PageMetrics pageMetrics : getMetrics(pageClass)) {
+        violations.addAll(budget.check(pageMetrics));
+      }
+    }
+    return violations;
+  }
+}
@@ -0,0 +1,82 @@
+package application.support.trace;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.Response;
+
+/**
+ * Command executor recording every round-trip of one session to a trace file, one JSON {@link TraceEntry} per line. The trace can be replayed with the
+ * {@link ReplayCommandExecutor}.
+ *
+ * @author srdjan
+ */
+public class RecordingCommandExecutor implements CommandExecutor {
+
+  private static final Logger LOG = LogManager.getLogger(RecordingCommandExecutor.class.getName());
+
+  private final CommandExecutor delegate;
+  private final Path traceFile;
+  private final BufferedWriter writer;
+
+  public RecordingCommandExecutor(CommandExecutor delegate, Path traceFile) throws IOException {
+    this.delegate = delegate;
+    this.traceFile = traceFile;
+    if (traceFile.toAbsolutePath().getParent() != null) {
+      Files.createDirectories(traceFile.toAbsolutePath().getParent());
+    }
+    this.writer = Files.newBufferedWriter(traceFile, StandardCharsets.UTF_8);
+    LOG.info("Recording WebDriver commands to {}", traceFile);
+  }
+
+  public CommandExecutor getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public Response execute(Command command) throws IOException {
+    long start = System.nanoTime();
+    try {
+      Response response = delegate.execute(command);
+      write(TraceEntry.of(command, response, elapsedMillis(start)));
+      return response;
+    } catch (IOException | RuntimeException e) {
+      write(TraceEntry.of(command, e, elapsedMillis(start)));
+      throw e;
+    } finally {
+      if (DriverCommand.QUIT.equals(command.getName())) {
+        close();
+      }
+    }
+  }
+
+  private long elapsedMillis(long startNanos) {
+    return (System.nanoTime() - startNanos) / 1_000_000;
+  }
+
+  private synchronized void write(TraceEntry entry) {
+    try {
+      writer.write(entry.toJson());
+      writer.newLine();
+      writer.flush();
+    } catch (IOException e) {
+      LOG.warn("Unable to record {} to {}", entry.getCommand(), traceFile, e);
+    }
+  }
+
+  private synchronized void close() {
+    try {
+      writer.close();
+    } catch (IOException e) {
+      LOG.warn("Unable to close trace {}", traceFile, e);
+    }
+  }
+}
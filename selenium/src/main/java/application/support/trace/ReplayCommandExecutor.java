@@ -0,0 +1,154 @@
+package application.support.trace;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.Response;
+
+import application.support.watchdog.SessionHungException;
+
+/**
+ * Command executor answering from a trace recorded by the {@link RecordingCommandExecutor}, without a browser or network. Each response is returned after the
+ * recorded latency multiplied by the scale, {@code 0} to answer right away.
+ * <p>
+ * Commands are matched in order. When the code under test sends a command that is not next in the trace, the next recorded command with the same name and
+ * parameters (or, failing that, the same name) within {@value #LOOK_AHEAD} entries is used, and the recorded commands in between count as skipped. This way a
+ * changed {@code SeleniumSupport} can be replayed against a trace of the old one, and the summary shows how the round-trips changed.
+ *
+ * @author srdjan
+ */
+public class ReplayCommandExecutor implements CommandExecutor {
+
+  static final int LOOK_AHEAD = 50;
+  private static final Logger LOG = LogManager.getLogger(ReplayCommandExecutor.class.getName());
+
+  private final Path traceFile;
+  private final List<TraceEntry> entries;
+  private final double latencyScale;
+  private final long startMillis = System.currentTimeMillis();
+
+  private int cursor;
+  private int roundTrips;
+  private int exactMatches;
+  private int nameMatches;
+  private int skipped;
+  private long recordedMillis;
+  private volatile boolean killed;
+
+  public ReplayCommandExecutor(Path traceFile, double latencyScale) throws IOException {
+    this.traceFile = traceFile;
+    this.latencyScale = latencyScale;
+    this.entries = new ArrayList<>();
+    for (String line : Files.readAllLines(traceFile, StandardCharsets.UTF_8)) {
+      if (!line.trim().isEmpty()) {
+        entries.add(TraceEntry.fromJson(line));
+      }
+    }
+    LOG.info("Replaying {} WebDriver commands from {} with latency scale {}", entries.size(), traceFile, latencyScale);
+  }
+
+  @Override
+  public synchronized Response execute(Command command) throws IOException {
+    int index = find(command);
+    if (index < 0) {
+      throw new WebDriverException(String.format("Trace %s has no response for '%s' %s after entry %s", traceFile, command.getName(),
+          TraceEntry.parametersOf(command), cursor));
+    }
+    skipped += index - cursor;
+    cursor = index + 1;
+    roundTrips++;
+
+    TraceEntry entry = entries.get(index);
+    recordedMillis += entry.getDurationMillis();
+    delay(entry.getDurationMillis());
+    if (DriverCommand.QUIT.equals(command.getName())) {
+      logSummary();
+    }
+    if (entry.getError() != null) {
+      RuntimeException recorded = entry.toRuntimeException();
+      if (recorded instanceof SessionHungException) {
+        killed = true;
+      }
+      if (recorded != null) {
+        throw recorded;
+      }
+      throw new IOException(entry.getError());
+    }
+    return entry.toResponse();
+  }
+
+  private int find(Command command) {
+    Map<String, Object> parameters = TraceEntry.parametersOf(command);
+    int end = Math.min(entries.size(), cursor + LOOK_AHEAD);
+    for (int i = cursor; i < end; i++) {
+      TraceEntry entry = entries.get(i);
+      if (entry.getCommand().equals(command.getName()) && entry.getParameters().equals(parameters)) {
+        exactMatches++;
+        return i;
+      }
+    }
+    for (int i = cursor; i < end; i++) {
+      if (entries.get(i).getCommand().equals(command.getName())) {
+        LOG.debug("Replaying '{}' {} with recorded parameters {}", command.getName(), parameters, entries.get(i).getParameters());
+        nameMatches++;
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void delay(long recordedMillis) {
+    long millis = Math.round(recordedMillis * latencyScale);
+    if (millis > 0) {
+      try {
+        Thread.sleep(millis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Checks if a replayed command failed with a {@link SessionHungException}. The recorded run went on with a fresh session from there, so the replay moves on
+   * to the next trace.
+   *
+   * @return {@code true} if the recorded session was killed, {@code false} otherwise
+   */
+  public boolean isKilled() {
+    return killed;
+  }
+
+  /**
+   * Returns the number of commands answered so far.
+   *
+   * @return the number of round-trips
+   */
+  public synchronized int getRoundTrips() {
+    return roundTrips;
+  }
+
+  /**
+   * Returns the number of recorded commands the replayed code did not send.
+   *
+   * @return the number of skipped trace entries
+   */
+  public synchronized int getSkipped() {
+    return skipped;
+  }
+
+  private void logSummary() {
+    LOG.info("Replayed {}: {} round-trips ({} exact, {} by name only), {} of {} recorded commands skipped, {}ms recorded latency, {}ms wall time", traceFile,
+        roundTrips, exactMatches, nameMatches, skipped + entries.size() - cursor, entries.size(), recordedMillis, System.currentTimeMillis() - startMillis);
+  }
+}
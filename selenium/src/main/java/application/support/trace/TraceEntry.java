@@ -0,0 +1,149 @@
+package application.support.trace;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonOutput;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.Response;
+
+/**
+ * One recorded WebDriver round-trip: the command, its parameters, the response (or the exception and its type) and how long it took.
+ *
+ * @author srdjan
+ */
+public class TraceEntry {
+
+  private static final Json JSON = new Json();
+
+  private final String command;
+  private final Map<String, Object> parameters;
+  private final String sessionId;
+  private final Integer status;
+  private final String state;
+  private final Object value;
+  private final String error;
+  private final String errorType;
+  private final long durationMillis;
+
+  private TraceEntry(String command, Map<String, Object> parameters, String sessionId, Integer status, String state, Object value, String error,
+      String errorType, long durationMillis) {
+    this.command = command;
+    this.parameters = parameters;
+    this.sessionId = sessionId;
+    this.status = status;
+    this.state = state;
+    this.value = value;
+    this.error = error;
+    this.errorType = errorType;
+    this.durationMillis = durationMillis;
+  }
+
+  static TraceEntry of(Command command, Response response, long durationMillis) {
+    return new TraceEntry(command.getName(), parametersOf(command), response.getSessionId(), response.getStatus(), response.getState(),
+        response.getValue(), null, null, durationMillis);
+  }
+
+  static TraceEntry of(Command command, Exception error, long durationMillis) {
+    return new TraceEntry(command.getName(), parametersOf(command), null, null, null, null, String.valueOf(error.getMessage()),
+        error.getClass().getName(), durationMillis);
+  }
+
+  @SuppressWarnings("unchecked")
+  static TraceEntry fromJson(String line) {
+    Map<String, Object> values = JSON.toType(line, Json.MAP_TYPE);
+    Number status = (Number) values.get("status");
+    return new TraceEntry((String) values.get("command"), (Map<String, Object>) values.get("parameters"), (String) values.get("sessionId"),
+        status != null ? status.intValue() : null, (String) values.get("state"), values.get("value"), (String) values.get("error"),
+        (String) values.get("errorType"), ((Number) values.get("durationMillis")).longValue());
+  }
+
+  String toJson() {
+    Map<String, Object> values = new LinkedHashMap<>();
+    values.put("command", command);
+    values.put("parameters", parameters);
+    values.put("sessionId", sessionId);
+    values.put("status", status);
+    values.put("state", state);
+    values.put("value", value);
+    values.put("error", error);
+    values.put("errorType", errorType);
+    values.put("durationMillis", durationMillis);
+    StringBuilder json = new StringBuilder();
+    try (JsonOutput output = JSON.newOutput(json).setPrettyPrint(false)) {
+      output.write(values);
+    }
+    return json.toString();
+  }
+
+  /**
+   * Returns the parameters of the given command as they read back from a trace, so recorded and live parameters can be compared.
+   *
+   * @param command the command
+   * @return the parameters
+   */
+  static Map<String, Object> parametersOf(Command command) {
+    return JSON.toType(JSON.toJson(command.getParameters()), Json.MAP_TYPE);
+  }
+
+  /**
+   * Rebuilds the recorded response.
+   *
+   * @return the response
+   */
+  Response toResponse() {
+    Response response = new Response();
+    response.setSessionId(sessionId);
+    response.setStatus(status);
+    response.setState(state);
+    response.setValue(value);
+    return response;
+  }
+
+  /**
+   * Rebuilds the recorded exception if it was a runtime exception, such as a {@link WebDriverException}, so it is replayed with its own type.
+   *
+   * @return the exception, or {@code null} if the command failed with an I/O error
+   */
+  RuntimeException toRuntimeException() {
+    if (error == null || errorType == null) {
+      return null;
+    }
+    Class<?> type;
+    try {
+      type = Class.forName(errorType);
+    } catch (ClassNotFoundException e) {
+      return new WebDriverException(error);
+    }
+    if (!RuntimeException.class.isAssignableFrom(type)) {
+      return null;
+    }
+    try {
+      return (RuntimeException) type.getConstructor(String.class).newInstance(error);
+    } catch (ReflectiveOperationException e) {
+      return new WebDriverException(error);
+    }
+  }
+
+  public String getCommand() {
+    return command;
+  }
+
+  public Map<String, Object> getParameters() {
+    return parameters;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public String getErrorType() {
+    return errorType;
+  }
+
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+}
@@ -0,0 +1,18 @@
+package application.support.watchdog;
+
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Thrown when a command did not finish within its deadline, or the session it was sent to was found dead, and the {@link SessionWatchdog} killed the session.
+ * The next {@code WebDriverFactory#getDriver(String)} call on the same thread returns a fresh session.
+ *
+ * @author srdjan
+ */
+public class SessionHungException extends WebDriverException {
+
+  private static final long serialVersionUID = 1L;
+
+  public SessionHungException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,256 @@
+package application.support.watchdog;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.service.DriverCommandExecutor;
+import org.openqa.selenium.remote.service.DriverService;
+
+/**
+ * Watches the WebDriver sessions handed out by {@code WebDriverFactory}. Enforces a deadline on every command and checks every session with a heartbeat on
+ * the driver's {@code /status} endpoint. A session that hangs or dies is killed: the driver process and all browser processes started for its profile
+ * directory are terminated. The thread that used it gets a {@link SessionHungException} and a fresh session on its next
+ * {@code WebDriverFactory#getDriver(String)} call.
+ * <p>
+ * Configured with system properties (all in milliseconds): {@code watchdog.command.timeout} (default 60000), {@code watchdog.navigation.timeout} (default
+ * 120000) and {@code watchdog.heartbeat.interval} (default 5000).
+ *
+ * @author srdjan
+ */
+public class SessionWatchdog {
+
+  /**
+   * Read timeout of the Selenium HTTP client, i.e. how long a hung command would block without the watchdog.
+   */
+  static final long SELENIUM_READ_TIMEOUT = TimeUnit.HOURS.toMillis(3);
+  private static final int MAX_MISSED_HEARTBEATS = 2;
+  private static final List<String> NAVIGATION_COMMANDS = Arrays.asList(DriverCommand.NEW_SESSION, DriverCommand.GET, DriverCommand.REFRESH,
+      DriverCommand.GO_BACK, DriverCommand.GO_FORWARD);
+  private static final Logger LOG = LogManager.getLogger(SessionWatchdog.class.getName());
+  private static final SessionWatchdog instance = new SessionWatchdog();
+
+  private final long commandTimeout;
+  private final long navigationTimeout;
+  private final long heartbeatInterval;
+
+  private final Set<WatchdogCommandExecutor> sessions = ConcurrentHashMap.newKeySet();
+  private final ExecutorService commands = Executors.newCachedThreadPool(daemonThreads("webdriver-command"));
+  private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(daemonThreads("webdriver-watchdog"));
+
+  private final AtomicInteger hangs = new AtomicInteger();
+  private final AtomicInteger deadSessions = new AtomicInteger();
+  private final AtomicLong recoveredMillis = new AtomicLong();
+
+  private SessionWatchdog() {
+    this(Long.getLong("watchdog.command.timeout", 60_000), Long.getLong("watchdog.navigation.timeout", 120_000),
+        Long.getLong("watchdog.heartbeat.interval", 5_000));
+  }
+
+  SessionWatchdog(long commandTimeout, long navigationTimeout, long heartbeatInterval) {
+    this.commandTimeout = commandTimeout;
+    this.navigationTimeout = navigationTimeout;
+    this.heartbeatInterval = heartbeatInterval;
+    heartbeat.scheduleWithFixedDelay(this::checkSessions, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+  }
+
+  public static SessionWatchdog getInstance() {
+    return instance;
+  }
+
+  /**
+   * Creates a watched command executor for a new session.
+   *
+   * @param service the driver service to run the session on, started with the first command
+   * @param profileDirectory the browser profile directory of the session, used to find its browser processes
+   * @return the command executor to create the driver with
+   */
+  public WatchdogCommandExecutor watch(DriverService service, Path profileDirectory) {
+    return watch(service, new DriverCommandExecutor(service), profileDirectory);
+  }
+
+  WatchdogCommandExecutor watch(DriverService service, CommandExecutor delegate, Path profileDirectory) {
+    WatchdogCommandExecutor session = new WatchdogCommandExecutor(this, service, delegate, profileDirectory);
+    sessions.add(session);
+    return session;
+  }
+
+  /**
+   * Returns the number of commands killed for exceeding their deadline.
+   *
+   * @return the number of hangs
+   */
+  public int getHangCount() {
+    return hangs.get();
+  }
+
+  /**
+   * Returns the number of sessions killed because they stopped answering the heartbeat.
+   *
+   * @return the number of dead sessions
+   */
+  public int getDeadSessionCount() {
+    return deadSessions.get();
+  }
+
+  /**
+   * Returns the time hung commands would have kept their threads blocked had the watchdog not killed them.
+   *
+   * @return the time in milliseconds
+   */
+  public long getRecoveredMillis() {
+    return recoveredMillis.get();
+  }
+
+  long getDeadline(String commandName) {
+    return NAVIGATION_COMMANDS.contains(commandName) ? navigationTimeout : commandTimeout;
+  }
+
+  <T> Future<T> submit(Callable<T> command) {
+    return commands.submit(command);
+  }
+
+  void unregister(WatchdogCommandExecutor session) {
+    sessions.remove(session);
+    try {
+      session.getService().stop();
+    } catch (RuntimeException e) {
+      LOG.warn("Unable to stop driver service", e);
+    }
+    deleteDirectory(session.getProfileDirectory());
+  }
+
+  /**
+   * Kills the given session.
+   *
+   * @param session the hung or dead session
+   * @param reason why the session is killed, for logging
+   */
+  void recover(WatchdogCommandExecutor session, String reason) {
+    long inFlightMillis = session.getInFlightMillis();
+    if (!session.markKilled()) {
+      return;
+    }
+    if (inFlightMillis >= 0) {
+      hangs.incrementAndGet();
+      recoveredMillis.addAndGet(Math.max(0, SELENIUM_READ_TIMEOUT - inFlightMillis));
+    } else {
+      deadSessions.incrementAndGet();
+    }
+    LOG.warn("Killing session, {}", reason);
+    // a hung driver may not answer the shutdown request DriverService#stop() relies on, so kill the driver and its browser first
+    killProcesses("--port=" + session.getService().getUrl().getPort() + "( |$)");
+    killProcesses(session.getProfileDirectory().toString().replaceAll("[\\\\^$.|?*+()\\[\\]{}]", "\\\\$0"));
+    unregister(session);
+    LOG.info("Watchdog totals: {} hangs, {} dead sessions, {}ms recovered", hangs.get(), deadSessions.get(), recoveredMillis.get());
+  }
+
+  private void checkSessions() {
+    for (WatchdogCommandExecutor session : sessions) {
+      try {
+        checkSession(session);
+      } catch (RuntimeException e) {
+        LOG.warn("Heartbeat check failed", e);
+      }
+    }
+  }
+
+  private void checkSession(WatchdogCommandExecutor session) {
+    if (!session.isStarted() || session.isKilled()) {
+      return;
+    }
+    long inFlightMillis = session.getInFlightMillis();
+    String command = session.getInFlightCommand();
+    if (inFlightMillis > getDeadline(command) + heartbeatInterval) {
+      recover(session, String.format("command '%s' still running after %sms", command, inFlightMillis));
+    } else if (session.getService().isRunning() && respondsToStatus(session.getService().getUrl())) {
+      session.heartbeatReceived();
+    } else if (session.missedHeartbeat() >= MAX_MISSED_HEARTBEATS) {
+      recover(session, String.format("driver did not answer %s heartbeats", MAX_MISSED_HEARTBEATS));
+    }
+  }
+
+  private boolean respondsToStatus(URL serviceUrl) {
+    try {
+      HttpURLConnection connection = (HttpURLConnection) new URL(serviceUrl, "/status").openConnection();
+      connection.setConnectTimeout((int) heartbeatInterval);
+      connection.setReadTimeout((int) heartbeatInterval);
+      try {
+        return connection.getResponseCode() == HttpURLConnection.HTTP_OK;
+      } finally {
+        connection.disconnect();
+      }
+    } catch (IOException e) {
+      LOG.debug("No heartbeat from {}: {}", serviceUrl, e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Terminates all processes whose command line matches the given regular expression.
+   *
+   * @param commandLine the regular expression, valid for both {@code pkill} and PowerShell's {@code -match}
+   */
+  private void killProcesses(String commandLine) {
+    ProcessBuilder kill;
+    if (File.separatorChar == '\\') {
+      kill = new ProcessBuilder("powershell", "-NoProfile", "-Command", String.format(
+          "Get-CimInstance Win32_Process | Where-Object { $_.CommandLine -match '%s' } | ForEach-Object { Stop-Process -Id $_.ProcessId -Force }",
+          commandLine.replace("'", "''")));
+    } else {
+      kill = new ProcessBuilder("pkill", "-KILL", "-f", "--", commandLine);
+    }
+    try {
+      Process process = kill.redirectErrorStream(true).start();
+      if (!process.waitFor(10, TimeUnit.SECONDS)) {
+        process.destroyForcibly();
+      }
+    } catch (IOException e) {
+      LOG.warn("Unable to kill processes matching '{}'", commandLine, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void deleteDirectory(Path directory) {
+    if (directory == null || !Files.exists(directory)) {
+      return;
+    }
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    } catch (IOException e) {
+      LOG.debug("Unable to delete profile directory {}", directory, e);
+    }
+  }
+
+  private static ThreadFactory daemonThreads(String name) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
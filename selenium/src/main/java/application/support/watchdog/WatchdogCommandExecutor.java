@@ -0,0 +1,154 @@
+package application.support.watchdog;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.Response;
+import org.openqa.selenium.remote.service.DriverService;
+
+/**
+ * Command executor of one watched session. Every command, including the ones sent by web elements, runs on a {@link SessionWatchdog} thread while the caller
+ * waits at most the command's deadline for it.
+ *
+ * @author srdjan
+ */
+public class WatchdogCommandExecutor implements CommandExecutor {
+
+  private static final Logger LOG = LogManager.getLogger(WatchdogCommandExecutor.class.getName());
+
+  private final SessionWatchdog watchdog;
+  private final DriverService service;
+  private final CommandExecutor delegate;
+  private final Path profileDirectory;
+
+  private volatile boolean started;
+  private volatile boolean killed;
+  private volatile Future<Response> inFlight;
+  private volatile String inFlightCommand;
+  private volatile long inFlightSince;
+  private int missedHeartbeats;
+
+  WatchdogCommandExecutor(SessionWatchdog watchdog, DriverService service, CommandExecutor delegate, Path profileDirectory) {
+    this.watchdog = watchdog;
+    this.service = service;
+    this.delegate = delegate;
+    this.profileDirectory = profileDirectory;
+  }
+
+  @Override
+  public Response execute(Command command) throws IOException {
+    String name = command.getName();
+    if (killed) {
+      if (DriverCommand.QUIT.equals(name)) {
+        return new Response(command.getSessionId());
+      }
+      throw new SessionHungException(String.format("Session was killed by the watchdog, can not execute '%s'", name));
+    }
+    long deadline = watchdog.getDeadline(name);
+    Future<Response> future = watchdog.submit(() -> delegate.execute(command));
+    inFlightCommand = name;
+    inFlightSince = System.currentTimeMillis();
+    inFlight = future;
+    try {
+      Response response = future.get(deadline, TimeUnit.MILLISECONDS);
+      if (DriverCommand.NEW_SESSION.equals(name)) {
+        started = true;
+      }
+      return response;
+    } catch (TimeoutException e) {
+      watchdog.recover(this, String.format("command '%s' exceeded its deadline of %sms", name, deadline));
+      throw new SessionHungException(String.format("Command '%s' did not finish within %sms", name, deadline));
+    } catch (CancellationException e) {
+      throw new SessionHungException(String.format("Command '%s' was aborted because the session is unresponsive", name));
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new WebDriverException(cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
+      throw new WebDriverException(String.format("Interrupted while executing '%s'", name), e);
+    } finally {
+      inFlight = null;
+      // a failed quit has stopped the service all the same, and its port may already be handed out to another session
+      if (DriverCommand.QUIT.equals(name) || DriverCommand.NEW_SESSION.equals(name) && !started) {
+        watchdog.unregister(this);
+      }
+    }
+  }
+
+  /**
+   * Checks if {@code this} session was killed by the watchdog and should be replaced.
+   *
+   * @return {@code true} if killed, {@code false} otherwise
+   */
+  public boolean isKilled() {
+    return killed;
+  }
+
+  boolean isStarted() {
+    return started;
+  }
+
+  DriverService getService() {
+    return service;
+  }
+
+  Path getProfileDirectory() {
+    return profileDirectory;
+  }
+
+  /**
+   * Returns how long the command in flight has been running.
+   *
+   * @return the time in milliseconds or {@code -1} if no command is in flight
+   */
+  long getInFlightMillis() {
+    return inFlight != null ? System.currentTimeMillis() - inFlightSince : -1;
+  }
+
+  String getInFlightCommand() {
+    return inFlightCommand;
+  }
+
+  int missedHeartbeat() {
+    return ++missedHeartbeats;
+  }
+
+  void heartbeatReceived() {
+    missedHeartbeats = 0;
+  }
+
+  /**
+   * Marks {@code this} session as killed and aborts the command in flight, so the waiting thread returns right away.
+   *
+   * @return {@code true} if the session was alive until now, {@code false} if it was already killed
+   */
+  synchronized boolean markKilled() {
+    if (killed) {
+      return false;
+    }
+    killed = true;
+    Future<Response> future = inFlight;
+    if (future != null) {
+      LOG.debug("Aborting command '{}' in flight for {}ms", inFlightCommand, getInFlightMillis());
+      future.cancel(true);
+    }
+    return true;
+  }
+}
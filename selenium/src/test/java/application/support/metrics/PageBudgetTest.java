@@ -0,0 +1,70 @@
+package application.support.metrics;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests of {@link PageBudget} and the budget check of the {@link PageMetricsRegistry}
+ *
+ * @author srdjan
+ */
+public class PageBudgetTest {
+
+  @Test(description = "only the limits that are set are checked and every exceeded one is reported")
+  public void reportsExceededLimits() {
+    PageBudget budget = new PageBudget().maxLoadEventEnd(1000).maxCumulativeLayoutShift(0.1).maxResourceTransferSize(1_000_000);
+
+    List<String> violations = budget.check(metrics(1500, 0.25, 2_000_000));
+
+    Assert.assertEquals(violations.size(), 3, violations.toString());
+    Assert.assertTrue(violations.get(0).startsWith("load event end of https://doodle.com/en/"), violations.get(0));
+    Assert.assertTrue(violations.get(1).startsWith("cumulative layout shift"), violations.get(1));
+    Assert.assertTrue(budget.check(metrics(1000, 0.1, 1_000_000)).isEmpty(), "Limits are inclusive");
+    Assert.assertTrue(new PageBudget().check(metrics(100_000, 5, 100_000_000)).isEmpty(), "An empty budget never fails");
+  }
+
+  @Test(description = "values the browser did not report do not count as violations")
+  public void ignoresUnreportedValues() {
+    PageBudget budget = new PageBudget().maxTimeToFirstByte(0).maxLoadEventEnd(0).maxLargestContentfulPaint(0).maxCumulativeLayoutShift(0)
+        .maxResourceTransferSize(0).maxUsedJsHeapSize(0);
+
+    Map<String, Object> values = new HashMap<>();
+    values.put("url", "https://doodle.com/dashboard");
+    values.put("ttfb", -1L);
+    values.put("load", -1L);
+    values.put("lcp", -1L);
+
+    Assert.assertTrue(budget.check(new PageMetrics(values)).isEmpty());
+  }
+
+  @Test(description = "the registry checks every collected navigation of a page against its budget")
+  public void checksRegisteredMetrics() {
+    PageMetricsRegistry registry = PageMetricsRegistry.getInstance();
+    Assert.assertTrue(registry.getBudgetViolations(BudgetedPage.class).isEmpty(), "No budget, no violations");
+    registry.record(BudgetedPage.class, metrics(500, 0, 0));
+    registry.record(BudgetedPage.class, metrics(1500, 0, 0));
+    registry.setBudget(BudgetedPage.class, new PageBudget().maxLoadEventEnd(1000));
+
+    Assert.assertEquals(registry.getMetrics(BudgetedPage.class).size(), 2);
+    Assert.assertEquals(registry.getBudgetViolations(BudgetedPage.class).size(), 1);
+  }
+
+  private static PageMetrics metrics(long load, double cls, long transferSize) {
+    Map<String, Object> values = new HashMap<>();
+    values.put("url", "https://doodle.com/en/");
+    values.put("load", load);
+    values.put("cls", cls);
+    values.put("resourceTransferSize", transferSize);
+    return new PageMetrics(values);
+  }
+
+  /**
+   * Page class only used as a registry key by this test.
+   */
+  private static class BudgetedPage {
+  }
+}
@@ -0,0 +1,58 @@
+package application.support.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests of {@link PageMetrics}
+ *
+ * @author srdjan
+ */
+public class PageMetricsTest {
+
+  @Test(description = "values are read from the script result, fractional times rounded and CLS kept as a fraction")
+  public void parsesScriptResult() {
+    Map<String, Object> values = new HashMap<>();
+    values.put("url", "https://doodle.com/en/");
+    values.put("ttfb", 120.4);
+    values.put("domContentLoaded", 850.5);
+    values.put("load", 1300L);
+    values.put("resourceCount", 42L);
+    values.put("resourceTransferSize", 512000L);
+    values.put("lcp", 1100.2);
+    values.put("cls", 0.125);
+    values.put("usedJsHeapSize", 10000000L);
+
+    PageMetrics metrics = new PageMetrics(values);
+
+    Assert.assertEquals(metrics.getUrl(), "https://doodle.com/en/");
+    Assert.assertEquals(metrics.getTimeToFirstByte(), 120);
+    Assert.assertEquals(metrics.getDomContentLoaded(), 851);
+    Assert.assertEquals(metrics.getLoadEventEnd(), 1300);
+    Assert.assertEquals(metrics.getResourceCount(), 42);
+    Assert.assertEquals(metrics.getResourceTransferSize(), 512000);
+    Assert.assertEquals(metrics.getLargestContentfulPaint(), 1100);
+    Assert.assertEquals(metrics.getCumulativeLayoutShift(), 0.125);
+    Assert.assertEquals(metrics.getUsedJsHeapSize(), 10000000);
+  }
+
+  @Test(description = "values the browser did not report are -1")
+  public void reportsMissingValuesAsUnknown() {
+    Map<String, Object> values = new HashMap<>();
+    values.put("url", "https://doodle.com/dashboard");
+    values.put("ttfb", -1L);
+    values.put("cls", 0L);
+
+    PageMetrics metrics = new PageMetrics(values);
+
+    Assert.assertEquals(metrics.getTimeToFirstByte(), -1);
+    Assert.assertEquals(metrics.getLoadEventEnd(), -1);
+    Assert.assertEquals(metrics.getLargestContentfulPaint(), -1);
+    Assert.assertEquals(metrics.getUsedJsHeapSize(), -1);
+    Assert.assertEquals(metrics.getCumulativeLayoutShift(), 0.0);
+    Assert.assertEquals(new PageMetrics(new HashMap<>()).getCumulativeLayoutShift(), -1.0);
+  }
+}
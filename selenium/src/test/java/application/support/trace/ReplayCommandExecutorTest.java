@@ -0,0 +1,133 @@
+package application.support.trace;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.Response;
+import org.openqa.selenium.remote.SessionId;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import application.support.watchdog.SessionHungException;
+
+/**
+ * Unit tests of {@link ReplayCommandExecutor}, replaying a trace recorded by the {@link RecordingCommandExecutor} from a fake driver
+ *
+ * @author srdjan
+ */
+public class ReplayCommandExecutorTest {
+
+  private static final SessionId SESSION = new SessionId("session");
+  private static final long PAGE_LOAD_MILLIS = 300;
+
+  private Path trace;
+
+  @BeforeClass
+  public void recordTrace() throws IOException {
+    trace = Files.createTempFile("trace-", ".jsonl");
+    trace.toFile().deleteOnExit();
+    CommandExecutor driver = command -> {
+      if (DriverCommand.GET.equals(command.getName())) {
+        try {
+          Thread.sleep(PAGE_LOAD_MILLIS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      Response response = new Response(SESSION);
+      response.setValue(command.getName() + " " + command.getParameters().get("url"));
+      return response;
+    };
+    RecordingCommandExecutor recorder = new RecordingCommandExecutor(driver, trace);
+    recorder.execute(new Command(null, DriverCommand.NEW_SESSION));
+    recorder.execute(get("https://a/"));
+    recorder.execute(new Command(SESSION, DriverCommand.GET_TITLE));
+    recorder.execute(new Command(SESSION, DriverCommand.GET_CURRENT_URL));
+    recorder.execute(get("https://b/"));
+    recorder.execute(new Command(SESSION, DriverCommand.QUIT));
+  }
+
+  @Test(description = "the same commands are answered in order with the recorded responses")
+  public void replaysInOrder() throws IOException {
+    ReplayCommandExecutor replay = new ReplayCommandExecutor(trace, 0);
+    replay.execute(new Command(null, DriverCommand.NEW_SESSION));
+    Assert.assertEquals(replay.execute(get("https://a/")).getValue(), "get https://a/");
+    replay.execute(new Command(SESSION, DriverCommand.GET_TITLE));
+    replay.execute(new Command(SESSION, DriverCommand.GET_CURRENT_URL));
+    Assert.assertEquals(replay.execute(get("https://b/")).getValue(), "get https://b/");
+    replay.execute(new Command(SESSION, DriverCommand.QUIT));
+
+    Assert.assertEquals(replay.getRoundTrips(), 6);
+    Assert.assertEquals(replay.getSkipped(), 0);
+  }
+
+  @Test(description = "an exact match further ahead wins over a match by name, and the commands in between are skipped")
+  public void prefersExactMatchAhead() throws IOException {
+    ReplayCommandExecutor replay = new ReplayCommandExecutor(trace, 0);
+    replay.execute(new Command(null, DriverCommand.NEW_SESSION));
+
+    Assert.assertEquals(replay.execute(get("https://b/")).getValue(), "get https://b/");
+    Assert.assertEquals(replay.getSkipped(), 3);
+  }
+
+  @Test(description = "a command sent with other parameters is answered by the next recorded command of the same name")
+  public void matchesByName() throws IOException {
+    ReplayCommandExecutor replay = new ReplayCommandExecutor(trace, 0);
+    replay.execute(new Command(null, DriverCommand.NEW_SESSION));
+
+    Assert.assertEquals(replay.execute(get("https://c/")).getValue(), "get https://a/");
+    Assert.assertEquals(replay.execute(get("https://d/")).getValue(), "get https://b/");
+    Assert.assertEquals(replay.getSkipped(), 2);
+  }
+
+  @Test(description = "a command the trace has no answer for fails", expectedExceptions = WebDriverException.class)
+  public void failsWithoutMatch() throws IOException {
+    new ReplayCommandExecutor(trace, 0).execute(new Command(SESSION, DriverCommand.GET_PAGE_SOURCE));
+  }
+
+  @Test(description = "the recorded latency is scaled, 0 answers right away")
+  public void scalesLatency() throws IOException {
+    ReplayCommandExecutor fast = new ReplayCommandExecutor(trace, 0);
+    long start = System.currentTimeMillis();
+    fast.execute(get("https://a/"));
+    fast.execute(get("https://b/"));
+    Assert.assertTrue(System.currentTimeMillis() - start < PAGE_LOAD_MILLIS, "Answered without the recorded latency");
+
+    ReplayCommandExecutor recorded = new ReplayCommandExecutor(trace, 1);
+    start = System.currentTimeMillis();
+    recorded.execute(get("https://a/"));
+    Assert.assertTrue(System.currentTimeMillis() - start >= PAGE_LOAD_MILLIS, "Answered after the recorded latency");
+  }
+
+  @Test(description = "recorded errors are replayed with their own type")
+  public void replaysErrors() throws IOException {
+    Path errors = Files.createTempFile("trace-", ".jsonl");
+    errors.toFile().deleteOnExit();
+    RecordingCommandExecutor recorder = new RecordingCommandExecutor(command -> {
+      if (DriverCommand.REFRESH.equals(command.getName())) {
+        throw new SessionHungException("did not finish");
+      }
+      throw new IOException("connection reset");
+    }, errors);
+    Assert.assertThrows(IOException.class, () -> recorder.execute(new Command(SESSION, DriverCommand.FIND_ELEMENT)));
+    Assert.assertThrows(SessionHungException.class, () -> recorder.execute(new Command(SESSION, DriverCommand.REFRESH)));
+
+    ReplayCommandExecutor replay = new ReplayCommandExecutor(errors, 0);
+    Assert.assertThrows(IOException.class, () -> replay.execute(new Command(SESSION, DriverCommand.FIND_ELEMENT)));
+    Assert.assertFalse(replay.isKilled());
+    Assert.assertThrows(SessionHungException.class, () -> replay.execute(new Command(SESSION, DriverCommand.REFRESH)));
+    Assert.assertTrue(replay.isKilled(), "A replayed hang moves on to the next trace");
+  }
+
+  private static Command get(String url) {
+    return new Command(SESSION, DriverCommand.GET, ImmutableMap.of("url", url));
+  }
+}
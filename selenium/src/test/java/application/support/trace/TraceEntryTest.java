@@ -0,0 +1,72 @@
+package application.support.trace;
+
+import java.io.IOException;
+
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.Response;
+import org.openqa.selenium.remote.SessionId;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import application.support.watchdog.SessionHungException;
+
+/**
+ * Unit tests of {@link TraceEntry}
+ *
+ * @author srdjan
+ */
+public class TraceEntryTest {
+
+  private static final SessionId SESSION = new SessionId("session");
+
+  @Test(description = "a response is written to a single compact line with the parameters as an object and read back unchanged")
+  public void roundTripsResponse() {
+    Command command = new Command(SESSION, DriverCommand.EXECUTE_SCRIPT, ImmutableMap.of("script", "return 1;", "args", ImmutableList.of(1, "two")));
+    Response response = new Response(SESSION);
+    response.setStatus(0);
+    response.setValue(ImmutableMap.of("answer", 42L));
+
+    String json = TraceEntry.of(command, response, 12).toJson();
+    Assert.assertFalse(json.contains("\n"), json);
+    Assert.assertTrue(json.matches(".*\"parameters\":\\s*\\{.*"), json);
+
+    TraceEntry entry = TraceEntry.fromJson(json);
+    Assert.assertEquals(entry.getCommand(), DriverCommand.EXECUTE_SCRIPT);
+    Assert.assertEquals(entry.getParameters(), TraceEntry.parametersOf(command));
+    Assert.assertEquals(entry.getDurationMillis(), 12);
+    Assert.assertNull(entry.getError());
+    Response replayed = entry.toResponse();
+    Assert.assertEquals(replayed.getSessionId(), SESSION.toString());
+    Assert.assertEquals(replayed.getStatus(), Integer.valueOf(0));
+    Assert.assertEquals(replayed.getValue(), ImmutableMap.of("answer", 42L));
+  }
+
+  @Test(description = "runtime exceptions are rebuilt with their recorded type, I/O errors are not")
+  public void roundTripsErrors() {
+    Command command = new Command(SESSION, DriverCommand.GET, ImmutableMap.of("url", "https://doodle.com/"));
+
+    TraceEntry hung = TraceEntry.fromJson(TraceEntry.of(command, new SessionHungException("did not finish"), 5).toJson());
+    Assert.assertEquals(hung.getErrorType(), SessionHungException.class.getName());
+    Assert.assertTrue(hung.toRuntimeException() instanceof SessionHungException);
+    Assert.assertTrue(hung.toRuntimeException().getMessage().contains("did not finish"));
+
+    Assert.assertTrue(TraceEntry.fromJson(TraceEntry.of(command, new NoSuchElementException("missing"), 5).toJson())
+        .toRuntimeException() instanceof NoSuchElementException);
+
+    TraceEntry io = TraceEntry.fromJson(TraceEntry.of(command, new IOException("connection reset"), 5).toJson());
+    Assert.assertNull(io.toRuntimeException());
+    Assert.assertEquals(io.getError(), "connection reset");
+  }
+
+  @Test(description = "an unknown exception type is replayed as a WebDriverException")
+  public void rebuildsUnknownTypeAsWebDriverException() {
+    TraceEntry entry = TraceEntry.fromJson("{\"command\":\"get\",\"parameters\":{},\"error\":\"gone\",\"errorType\":\"com.example.Missing\",\"durationMillis\":1}");
+    Assert.assertEquals(entry.toRuntimeException().getClass(), WebDriverException.class);
+  }
+}
@@ -0,0 +1,141 @@
+package application.support.watchdog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.net.PortProber;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.Response;
+import org.openqa.selenium.remote.SessionId;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Unit tests of {@link WatchdogCommandExecutor} with a fake driver
+ *
+ * @author srdjan
+ */
+public class WatchdogCommandExecutorTest {
+
+  private static final long COMMAND_TIMEOUT = 200;
+  private static final long HEARTBEAT_INTERVAL = 50;
+  private static final SessionId SESSION = new SessionId("session");
+
+  private SessionWatchdog watchdog;
+  private ChromeDriverService service;
+  private Path profileDirectory;
+
+  @BeforeMethod
+  public void createWatchdog() throws IOException {
+    // the fake service never runs, so the heartbeat would take every session for dead; only the heartbeat tests let it check
+    watchdog = new SessionWatchdog(COMMAND_TIMEOUT, COMMAND_TIMEOUT * 2, TimeUnit.MINUTES.toMillis(10));
+    // never started, the fake delegates answer instead of the driver
+    service = new ChromeDriverService(new File("chromedriver"), PortProber.findFreePort(), ImmutableList.of(), ImmutableMap.of());
+    profileDirectory = Files.createTempDirectory("chrome-profile-");
+  }
+
+  @Test(description = "a command that exceeds its deadline is aborted and the session killed")
+  public void killsHungCommand() throws Exception {
+    CountDownLatch interrupted = new CountDownLatch(1);
+    WatchdogCommandExecutor session = watchdog.watch(service, command -> {
+      if (DriverCommand.GET.equals(command.getName())) {
+        try {
+          Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+        } catch (InterruptedException e) {
+          interrupted.countDown();
+        }
+      }
+      return new Response(SESSION);
+    }, profileDirectory);
+    session.execute(new Command(null, DriverCommand.NEW_SESSION));
+
+    long start = System.currentTimeMillis();
+    Assert.assertThrows(SessionHungException.class, () -> session.execute(new Command(SESSION, DriverCommand.GET, ImmutableMap.of("url", "about:blank"))));
+
+    Assert.assertTrue(System.currentTimeMillis() - start < COMMAND_TIMEOUT * 2 + 1000, "Aborted at the navigation deadline");
+    Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS), "Hung command was interrupted");
+    Assert.assertTrue(session.isKilled());
+    Assert.assertEquals(watchdog.getHangCount(), 1);
+    Assert.assertFalse(Files.exists(profileDirectory), "Profile directory was deleted");
+  }
+
+  @Test(description = "a killed session fails every command but quit, which does not reach the driver any more")
+  public void rejectsCommandsAfterKill() throws Exception {
+    CountingExecutor delegate = new CountingExecutor(null);
+    WatchdogCommandExecutor session = watchdog.watch(service, delegate, profileDirectory);
+    session.execute(new Command(null, DriverCommand.NEW_SESSION));
+    watchdog.recover(session, "test");
+
+    Assert.assertThrows(SessionHungException.class, () -> session.execute(new Command(SESSION, DriverCommand.GET_CURRENT_URL)));
+    Response response = session.execute(new Command(SESSION, DriverCommand.QUIT));
+
+    Assert.assertEquals(response.getSessionId(), SESSION.toString());
+    Assert.assertEquals(delegate.count, 1, "Only the new session reached the driver");
+    Assert.assertEquals(watchdog.getDeadSessionCount(), 1);
+  }
+
+  @Test(description = "a session whose quit failed is no longer watched, so the heartbeat does not count it as dead")
+  public void unregistersOnFailedQuit() throws Exception {
+    watchdog = new SessionWatchdog(COMMAND_TIMEOUT, COMMAND_TIMEOUT * 2, HEARTBEAT_INTERVAL);
+    WatchdogCommandExecutor session = watchdog.watch(service, new CountingExecutor(DriverCommand.QUIT), profileDirectory);
+    session.execute(new Command(null, DriverCommand.NEW_SESSION));
+
+    Assert.assertThrows(IOException.class, () -> session.execute(new Command(SESSION, DriverCommand.QUIT)));
+    Thread.sleep(HEARTBEAT_INTERVAL * 6);
+
+    Assert.assertFalse(session.isKilled());
+    Assert.assertEquals(watchdog.getDeadSessionCount(), 0);
+    Assert.assertFalse(Files.exists(profileDirectory), "Profile directory was deleted");
+  }
+
+  @Test(description = "a started session the driver stopped answering for is killed by the heartbeat")
+  public void killsDeadSession() throws Exception {
+    watchdog = new SessionWatchdog(COMMAND_TIMEOUT, COMMAND_TIMEOUT * 2, HEARTBEAT_INTERVAL);
+    WatchdogCommandExecutor session = watchdog.watch(service, new CountingExecutor(null), profileDirectory);
+    session.execute(new Command(null, DriverCommand.NEW_SESSION));
+    Thread.sleep(HEARTBEAT_INTERVAL * 6);
+
+    Assert.assertTrue(session.isKilled());
+    Assert.assertEquals(watchdog.getDeadSessionCount(), 1);
+  }
+
+  @Test(description = "navigation commands get the longer deadline")
+  public void usesNavigationDeadline() {
+    Assert.assertEquals(watchdog.getDeadline(DriverCommand.GET), COMMAND_TIMEOUT * 2);
+    Assert.assertEquals(watchdog.getDeadline(DriverCommand.NEW_SESSION), COMMAND_TIMEOUT * 2);
+    Assert.assertEquals(watchdog.getDeadline(DriverCommand.FIND_ELEMENT), COMMAND_TIMEOUT);
+  }
+
+  /**
+   * Answers every command right away, failing the given one.
+   */
+  private static class CountingExecutor implements CommandExecutor {
+
+    private final String failing;
+    private int count;
+
+    CountingExecutor(String failing) {
+      this.failing = failing;
+    }
+
+    @Override
+    public Response execute(Command command) throws IOException {
+      count++;
+      if (command.getName().equals(failing)) {
+        throw new IOException("Driver failed " + failing);
+      }
+      return new Response(SESSION);
+    }
+  }
+}
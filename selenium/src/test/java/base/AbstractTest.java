@@ -1,23 +1,105 @@
 package base;
 
+import java.lang.reflect.Method;
+
+import org.testng.IConfigurable;
+import org.testng.IConfigureCallBack;
+import org.testng.IHookCallBack;
+import org.testng.IHookable;
+import org.testng.ITestResult;
+import org.testng.SkipException;
 import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
 import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
 
 import application.WebDriverFactory;
+import application.support.coverage.CoverageRecorder;
+import base.selection.CoverageIndex;
+import base.shard.Shard;
+import base.shard.ShardClaims;
 
 /**
  * Abstract test class for common methods
  *
  * @author srdjan
  */
-public abstract class AbstractTest {
+@Listeners(SuiteInterceptor.class)
+public abstract class AbstractTest implements IHookable, IConfigurable {
+
+  private static final ThreadLocal<Long> testStart = new ThreadLocal<Long>();
+  private static final ThreadLocal<Boolean> claimedElsewhere = new ThreadLocal<Boolean>();
 
   @BeforeClass
   public void commonSetUp() {
   }
 
+  /**
+   * Claims the test for this shard and starts timing it and recording its coverage. Runs before the set up of subclasses, so the recorded duration and
+   * coverage include it.
+   *
+   * @param method the test method about to run
+   */
+  @BeforeMethod(alwaysRun = true)
+  public void startTest(Method method) {
+    String testId = Shard.testId(getClass(), method.getName());
+    boolean claimed = Shard.getInstance().claim(testId);
+    claimedElsewhere.set(!claimed);
+    if (claimed) {
+      CoverageRecorder.getInstance().startTest(testId);
+    }
+    testStart.set(System.currentTimeMillis());
+  }
+
+  @AfterMethod(alwaysRun = true)
+  public void finishTest(Method method, ITestResult result) {
+    Long start = testStart.get();
+    testStart.remove();
+    claimedElsewhere.remove();
+    CoverageRecorder.getInstance().finishTest();
+    if (start != null && result.getStatus() != ITestResult.SKIP) {
+      Shard.getInstance().getDurations().record(Shard.testId(getClass(), method.getName()), System.currentTimeMillis() - start);
+    }
+  }
+
   @AfterClass
   public void commonTearDown() {
     WebDriverFactory.getInstance().quitDriver();
   }
+
+  @AfterSuite(alwaysRun = true)
+  public void saveTestHistory() {
+    Shard shard = Shard.getInstance();
+    shard.getDurations().save();
+    CoverageIndex index = CoverageIndex.load(CoverageIndex.getIndexFile());
+    if (shard.isSharded()) {
+      index.update(CoverageRecorder.getInstance().getCoverage(), shard.getIndex());
+    } else {
+      index.update(CoverageRecorder.getInstance().getCoverage());
+    }
+  }
+
+  /**
+   * Skips a test claimed by another shard. Skipping here instead of in a {@code @BeforeMethod} keeps TestNG from skipping the remaining tests of the class.
+   */
+  @Override
+  public void run(IHookCallBack callBack, ITestResult testResult) {
+    if (Boolean.TRUE.equals(claimedElsewhere.get())) {
+      throw new SkipException(ShardClaims.CLAIMED_ELSEWHERE);
+    }
+    callBack.runTestMethod(testResult);
+  }
+
+  /**
+   * Leaves out the set up and tear down of subclasses for a test claimed by another shard.
+   */
+  @Override
+  public void run(IConfigureCallBack callBack, ITestResult testResult) {
+    if (Boolean.TRUE.equals(claimedElsewhere.get()) && testResult.getMethod().getConstructorOrMethod().getDeclaringClass() != AbstractTest.class) {
+      return;
+    }
+    callBack.runConfigurationMethod(testResult);
+  }
 }
@@ -0,0 +1,98 @@
+package base;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Helpers for the history files shared by all JVMs running the suite. Updates re-read the file under a lock and replace it atomically, so JVMs do not lose
+ * each other's results. Shards write to their own {@code <file>.shard-<index>} instead, which is folded back once all shards are done.
+ *
+ * @author srdjan
+ */
+public final class SharedFile {
+
+  private static final String SHARD_SUFFIX = ".shard-";
+
+  private SharedFile() {
+  }
+
+  /**
+   * Writes a value to a file.
+   *
+   * @param <T> the type of the value
+   */
+  @FunctionalInterface
+  public interface Writer<T> {
+
+    void write(Path target, T value) throws IOException;
+  }
+
+  /**
+   * Returns the file the given shard writes to instead of the shared file.
+   *
+   * @param file the shared file
+   * @param shardIndex the 0-based index of the shard
+   * @return the shard file next to the shared file
+   */
+  public static Path shardFile(Path file, int shardIndex) {
+    return file.resolveSibling(file.getFileName() + SHARD_SUFFIX + shardIndex);
+  }
+
+  /**
+   * Returns the files written by shards next to the shared file.
+   *
+   * @param file the shared file
+   * @return the shard files, possibly empty
+   * @throws IOException when the directory can not be listed
+   */
+  public static List<Path> shardFiles(Path file) throws IOException {
+    List<Path> result = new ArrayList<>();
+    Path directory = file.toAbsolutePath().getParent();
+    if (!Files.isDirectory(directory)) {
+      return result;
+    }
+    try (DirectoryStream<Path> shardFiles = Files.newDirectoryStream(directory, file.getFileName() + SHARD_SUFFIX + "*")) {
+      for (Path shardFile : shardFiles) {
+        if (shardFile.getFileName().toString().matches(".*" + SHARD_SUFFIX + "\\d+")) {
+          result.add(shardFile);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reads the target file, applies the change and writes the result back, holding a lock on {@code <target>.lock} throughout.
+   *
+   * @param target the file to update
+   * @param reader reads the file, returning an empty value when it does not exist
+   * @param change the change to apply to the current value
+   * @param writer writes the changed value
+   * @throws IOException when the file can not be locked or written
+   */
+  public static <T> void update(Path target, Function<Path, T> reader, Consumer<T> change, Writer<T> writer) throws IOException {
+    Path directory = target.toAbsolutePath().getParent();
+    if (directory != null) {
+      Files.createDirectories(directory);
+    }
+    Path lockFile = target.resolveSibling(target.getFileName() + ".lock");
+    // the lock is released when the channel is closed
+    try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      channel.lock();
+      T value = reader.apply(target);
+      change.accept(value);
+      Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+      writer.write(temp, value);
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+  }
+}
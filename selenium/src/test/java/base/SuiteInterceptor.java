@@ -0,0 +1,27 @@
+package base;
+
+import java.util.List;
+
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+
+import base.selection.SelectionInterceptor;
+import base.shard.ShardingInterceptor;
+
+/**
+ * Decides which tests of the suite this JVM runs: first the tests affected by the change, see {@link SelectionInterceptor}, then the share of this shard,
+ * see {@link ShardingInterceptor}. TestNG does not keep the order of the interceptors registered with {@code @Listeners}, so they are chained here instead.
+ *
+ * @author srdjan
+ */
+public class SuiteInterceptor implements IMethodInterceptor {
+
+  private final IMethodInterceptor selection = new SelectionInterceptor();
+  private final IMethodInterceptor sharding = new ShardingInterceptor();
+
+  @Override
+  public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+    return sharding.intercept(selection.intercept(methods, context), context);
+  }
+}
@@ -0,0 +1,155 @@
+package base.selection;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.json.Json;
+
+import application.support.coverage.CoverageRecorder;
+import base.SharedFile;
+
+/**
+ * Which classes and locators every test touched, kept as JSON ({@code {testId: {classes: [...], locators: [...]}}}). Runs only ever add to a test's entry, so
+ * a test that failed half way does not lose coverage it had before; delete the file to rebuild it from scratch.
+ *
+ * @author srdjan
+ */
+public class CoverageIndex {
+
+  public static final String INDEX_PROPERTY = "selection.index";
+  private static final String CLASSES = "classes";
+  private static final String LOCATORS = "locators";
+  private static final Logger LOG = LogManager.getLogger(CoverageIndex.class.getName());
+  private static final Json JSON = new Json();
+
+  private final Path file;
+  private final Map<String, Map<String, Set<String>>> tests;
+
+  private CoverageIndex(Path file, Map<String, Map<String, Set<String>>> tests) {
+    this.file = file;
+    this.tests = tests;
+  }
+
+  /**
+   * Returns the index file, configured with {@code -Dselection.index}.
+   *
+   * @return the index file, {@code test-coverage.json} by default
+   */
+  public static Path getIndexFile() {
+    return Paths.get(System.getProperty(INDEX_PROPERTY, "test-coverage.json"));
+  }
+
+  public static CoverageIndex load(Path file) {
+    return new CoverageIndex(file, read(file));
+  }
+
+  public boolean contains(String testId) {
+    return tests.containsKey(testId);
+  }
+
+  public Set<String> getClasses(String testId) {
+    return tests.getOrDefault(testId, Collections.emptyMap()).getOrDefault(CLASSES, Collections.emptySet());
+  }
+
+  public Set<String> getLocators(String testId) {
+    return tests.getOrDefault(testId, Collections.emptyMap()).getOrDefault(LOCATORS, Collections.emptySet());
+  }
+
+  /**
+   * Adds the recorded coverage to the index file.
+   *
+   * @param coverage the coverage recorded in this run
+   */
+  public void update(Map<String, CoverageRecorder.TestCoverage> coverage) {
+    update(coverage, file);
+  }
+
+  /**
+   * Adds the recorded coverage of a shard to its own file next to the index, so shards that start later still select from the same index. See
+   * {@link #collectShards()}.
+   *
+   * @param coverage the coverage recorded in this run
+   * @param shardIndex the 0-based index of the shard
+   */
+  public void update(Map<String, CoverageRecorder.TestCoverage> coverage, int shardIndex) {
+    update(coverage, SharedFile.shardFile(file, shardIndex));
+  }
+
+  /**
+   * Folds the files written by all shards into the index file and deletes them.
+   *
+   * @throws IOException when a file can not be read or written
+   */
+  public void collectShards() throws IOException {
+    for (Path shardFile : SharedFile.shardFiles(file)) {
+      merge(file, read(shardFile));
+      Files.delete(shardFile);
+      LOG.info("Collected test coverage from {}", shardFile);
+    }
+  }
+
+  private void update(Map<String, CoverageRecorder.TestCoverage> coverage, Path target) {
+    if (coverage.isEmpty()) {
+      return;
+    }
+    Map<String, Map<String, Set<String>>> additions = new TreeMap<>();
+    coverage.forEach((testId, testCoverage) -> {
+      Map<String, Set<String>> entry = new TreeMap<>();
+      entry.put(CLASSES, new TreeSet<>(testCoverage.getClasses()));
+      entry.put(LOCATORS, new TreeSet<>(testCoverage.getLocators()));
+      additions.put(testId, entry);
+    });
+    try {
+      merge(target, additions);
+      LOG.info("Saved coverage of {} tests to {}", coverage.size(), target);
+    } catch (IOException e) {
+      LOG.warn("Unable to save test coverage to {}", target, e);
+    }
+  }
+
+  /**
+   * Adds the given entries to the target file, keeping the entries other JVMs wrote to it.
+   */
+  private static void merge(Path target, Map<String, Map<String, Set<String>>> additions) throws IOException {
+    SharedFile.update(target, CoverageIndex::read, merged -> additions.forEach((testId, entry) -> entry.forEach((key, names) -> merged
+        .computeIfAbsent(testId, id -> new TreeMap<>()).computeIfAbsent(key, k -> new TreeSet<>()).addAll(names))), CoverageIndex::write);
+  }
+
+  private static void write(Path target, Map<String, Map<String, Set<String>>> tests) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+      writer.write(JSON.toJson(tests));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Map<String, Set<String>>> read(Path file) {
+    Map<String, Map<String, Set<String>>> tests = new TreeMap<>();
+    if (!Files.isRegularFile(file)) {
+      return tests;
+    }
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      Map<String, Object> values = JSON.toType(reader, Json.MAP_TYPE);
+      values.forEach((testId, value) -> {
+        Map<String, Set<String>> entry = new TreeMap<>();
+        ((Map<String, Object>) value).forEach((key, names) -> entry.put(key, new TreeSet<>((Collection<String>) names)));
+        tests.put(testId, entry);
+      });
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Unable to read test coverage from {}", file, e);
+    }
+    return tests;
+  }
+}
@@ -0,0 +1,83 @@
+package base.selection;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import application.support.coverage.CoverageRecorder;
+import base.SharedFile;
+
+/**
+ * Unit tests of {@link CoverageIndex}
+ *
+ * @author srdjan
+ */
+public class CoverageIndexTest {
+
+  private Path directory;
+  private Path file;
+
+  @BeforeMethod
+  public void createDirectory() throws IOException {
+    directory = Files.createTempDirectory("coverage");
+    file = directory.resolve("test-coverage.json");
+  }
+
+  @AfterMethod(alwaysRun = true)
+  public void deleteFiles() throws IOException {
+    try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory)) {
+      for (Path path : paths) {
+        Files.delete(path);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  @Test(description = "entries only ever grow")
+  public void mergesCoverage() {
+    CoverageIndex.load(file).update(coverage("t#a", "application.page.HomePage", "By.id: first"));
+    CoverageIndex.load(file).update(coverage("t#a", "application.page.DashboardPage", "By.id: second"));
+
+    CoverageIndex index = CoverageIndex.load(file);
+    Assert.assertTrue(index.contains("t#a"));
+    Assert.assertFalse(index.contains("t#b"));
+    Assert.assertEquals(index.getClasses("t#a"), new HashSet<>(Arrays.asList("application.page.HomePage", "application.page.DashboardPage")));
+    Assert.assertEquals(index.getLocators("t#a"), new HashSet<>(Arrays.asList("By.id: first", "By.id: second")));
+    Assert.assertTrue(index.getLocators("t#b").isEmpty());
+  }
+
+  @Test(description = "shards update their own file, which is folded into the index when the shards are collected")
+  public void collectsShardFiles() throws IOException {
+    CoverageIndex.load(file).update(coverage("t#c", "application.page.HomePage", "By.id: c"));
+    CoverageIndex.load(file).update(coverage("t#d", "application.page.DashboardPage", "By.id: d"), 1);
+    Assert.assertFalse(CoverageIndex.load(file).contains("t#d"));
+
+    CoverageIndex.load(file).collectShards();
+
+    CoverageIndex index = CoverageIndex.load(file);
+    Assert.assertTrue(index.contains("t#c"));
+    Assert.assertEquals(index.getLocators("t#d"), new HashSet<>(Arrays.asList("By.id: d")));
+    Assert.assertFalse(Files.exists(SharedFile.shardFile(file, 1)));
+  }
+
+  @Test(description = "a missing or corrupt index is empty")
+  public void readsInvalidIndexAsEmpty() throws IOException {
+    Assert.assertFalse(CoverageIndex.load(file).contains("t#a"));
+    Files.write(file, "{not json".getBytes());
+    Assert.assertFalse(CoverageIndex.load(file).contains("t#a"));
+  }
+
+  private Map<String, CoverageRecorder.TestCoverage> coverage(String testId, String className, String locator) {
+    return Collections.singletonMap(testId, new CoverageRecorder.TestCoverage(Collections.singleton(className), Collections.singleton(locator)));
+  }
+}
@@ -0,0 +1,113 @@
+package base.selection;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Files changed since a git ref, with the changed lines of each, read from {@code git diff --relative --unified=0 <ref>}. Paths are relative to the working
+ * directory and include uncommitted changes.
+ *
+ * @author srdjan
+ */
+public class GitDiff {
+
+  private final String text;
+  private final List<FileChange> changes;
+
+  GitDiff(String text) {
+    this.text = text;
+    this.changes = parse(text);
+  }
+
+  /**
+   * Runs {@code git diff} against the given ref.
+   *
+   * @param ref the git ref to compare the working tree with, e.g. {@code origin/main}
+   * @return the diff
+   * @throws IOException when git fails
+   */
+  public static GitDiff since(String ref) throws IOException {
+    Process git = new ProcessBuilder("git", "diff", "--relative", "--unified=0", "--no-color", ref).redirectErrorStream(true).start();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (InputStream in = git.getInputStream()) {
+      byte[] buffer = new byte[8192];
+      for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+        output.write(buffer, 0, read);
+      }
+    }
+    String text = new String(output.toByteArray(), StandardCharsets.UTF_8);
+    try {
+      if (git.waitFor() != 0) {
+        throw new IOException(String.format("git diff %s failed: %s", ref, text.trim()));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while running git diff", e);
+    }
+    return new GitDiff(text);
+  }
+
+  public List<FileChange> getChanges() {
+    return Collections.unmodifiableList(changes);
+  }
+
+  /**
+   * Returns a hash of the diff, the same for every shard of the same change.
+   *
+   * @return the hash
+   */
+  public long hash() {
+    return text.hashCode();
+  }
+
+  private static List<FileChange> parse(String text) {
+    List<FileChange> changes = new ArrayList<>();
+    FileChange change = null;
+    boolean inHunk = false;
+    for (String line : text.split("\n")) {
+      if (line.startsWith("diff --git ")) {
+        change = new FileChange(line.substring(line.lastIndexOf(" b/") + 3));
+        changes.add(change);
+        inHunk = false;
+      } else if (line.startsWith("@@")) {
+        inHunk = change != null;
+      } else if (inHunk && line.startsWith("-")) {
+        change.removed.add(line.substring(1));
+      } else if (inHunk && line.startsWith("+")) {
+        change.added.add(line.substring(1));
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * The changed lines of one file.
+   */
+  public static class FileChange {
+
+    private final String path;
+    private final List<String> removed = new ArrayList<>();
+    private final List<String> added = new ArrayList<>();
+
+    FileChange(String path) {
+      this.path = path;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    public List<String> getRemoved() {
+      return Collections.unmodifiableList(removed);
+    }
+
+    public List<String> getAdded() {
+      return Collections.unmodifiableList(added);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package base.selection;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests of {@link GitDiff}
+ *
+ * @author srdjan
+ */
+public class GitDiffTest {
+
+  private static final String DIFF = "diff --git a/src/main/java/application/page/HomePage.java b/src/main/java/application/page/HomePage.java\n"
+      + "index 1111111..2222222 100644\n"
+      + "--- a/src/main/java/application/page/HomePage.java\n"
+      + "+++ b/src/main/java/application/page/HomePage.java\n"
+      + "@@ -15 +15 @@ public class HomePage extends AbstractPage {\n"
+      + "-  private final By PAGE_IDENTIFIER = By.cssSelector(\"[id='___gatsby']\");\n"
+      + "+  private final By PAGE_IDENTIFIER = By.cssSelector(\"[id='root']\");\n"
+      + "@@ -30,0 +31 @@ public class HomePage extends AbstractPage {\n"
+      + "+  // trailing comment\n"
+      + "diff --git a/pom.xml b/pom.xml\n"
+      + "new file mode 100644\n"
+      + "--- /dev/null\n"
+      + "+++ b/pom.xml\n"
+      + "@@ -0,0 +1 @@\n"
+      + "+<project/>\n";
+
+  @Test(description = "the changed lines of every file are collected, file headers are not")
+  public void parsesChangedLines() {
+    List<GitDiff.FileChange> changes = new GitDiff(DIFF).getChanges();
+
+    Assert.assertEquals(changes.size(), 2);
+    GitDiff.FileChange page = changes.get(0);
+    Assert.assertEquals(page.getPath(), "src/main/java/application/page/HomePage.java");
+    Assert.assertEquals(page.getRemoved(), Collections.singletonList("  private final By PAGE_IDENTIFIER = By.cssSelector(\"[id='___gatsby']\");"));
+    Assert.assertEquals(page.getAdded(),
+        Arrays.asList("  private final By PAGE_IDENTIFIER = By.cssSelector(\"[id='root']\");", "  // trailing comment"));
+    GitDiff.FileChange pom = changes.get(1);
+    Assert.assertEquals(pom.getPath(), "pom.xml");
+    Assert.assertTrue(pom.getRemoved().isEmpty());
+    Assert.assertEquals(pom.getAdded(), Collections.singletonList("<project/>"));
+  }
+
+  @Test(description = "an empty diff has no changes")
+  public void parsesEmptyDiff() {
+    Assert.assertTrue(new GitDiff("").getChanges().isEmpty());
+  }
+
+  @Test(description = "the hash seeding the safety sample only depends on the diff")
+  public void hashesDiffText() {
+    Assert.assertEquals(new GitDiff(DIFF).hash(), new GitDiff(DIFF).hash());
+    Assert.assertNotEquals(new GitDiff(DIFF).hash(), new GitDiff(DIFF + "+\n").hash());
+  }
+}
@@ -0,0 +1,76 @@
+package base.selection;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+
+import base.shard.Shard;
+
+/**
+ * Runs only the tests affected by the changes since a git ref, see {@link TestSelector}. Configured with system properties:
+ * <ul>
+ * <li>{@code selection.base} - the git ref to compare with, e.g. {@code origin/main}; when not set all tests run</li>
+ * <li>{@code selection.index} - the coverage index, defaults to {@code test-coverage.json}</li>
+ * <li>{@code selection.sample} - fraction of unaffected tests to run anyway, defaults to 0.1</li>
+ * <li>{@code selection.seed} - seed of the safety sample, defaults to a hash of the diff</li>
+ * </ul>
+ * Chained before the {@code ShardingInterceptor} by the {@code SuiteInterceptor}, so shards split the selected tests only.
+ *
+ * @author srdjan
+ */
+public class SelectionInterceptor implements IMethodInterceptor {
+
+  public static final String BASE_PROPERTY = "selection.base";
+  public static final String SAMPLE_PROPERTY = "selection.sample";
+  public static final String SEED_PROPERTY = "selection.seed";
+  private static final Logger LOG = LogManager.getLogger(SelectionInterceptor.class.getName());
+
+  @Override
+  public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+    String base = System.getProperty(BASE_PROPERTY);
+    if (base == null) {
+      return methods;
+    }
+    GitDiff diff;
+    try {
+      diff = GitDiff.since(base);
+    } catch (IOException e) {
+      LOG.warn("Unable to determine changes since {}, running all tests", base, e);
+      return methods;
+    }
+    Set<String> testIds = new HashSet<>();
+    for (IMethodInstance instance : methods) {
+      testIds.add(testId(instance));
+    }
+    Set<String> ignoredFiles = new HashSet<>(Arrays.asList(CoverageIndex.getIndexFile().normalize().toString().replace('\\', '/'),
+        Shard.getInstance().getDurationsFile().normalize().toString().replace('\\', '/')));
+    double sampleRate = Double.parseDouble(System.getProperty(SAMPLE_PROPERTY, "0.1"));
+    long seed = Long.getLong(SEED_PROPERTY, diff.hash());
+    Set<String> selected = new TestSelector(CoverageIndex.load(CoverageIndex.getIndexFile()), ignoredFiles, sampleRate, seed).select(testIds,
+        diff.getChanges());
+
+    List<IMethodInstance> result = new ArrayList<>();
+    for (IMethodInstance instance : methods) {
+      if (selected.contains(testId(instance))) {
+        result.add(instance);
+      }
+    }
+    LOG.info("Running {} of {} tests in '{}' affected by changes since {}", result.size(), methods.size(), context.getName(), base);
+    return result;
+  }
+
+  private String testId(IMethodInstance instance) {
+    ITestNGMethod method = instance.getMethod();
+    return Shard.testId(method.getRealClass(), method.getMethodName());
+  }
+}
@@ -0,0 +1,185 @@
+package base.selection;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.By;
+
+import application.support.SeleniumSupport;
+
+/**
+ * Selects the tests affected by a {@link GitDiff} using the {@link CoverageIndex}:
+ * <ul>
+ * <li>a changed page object or component, i.e. a {@link SeleniumSupport} class, selects every test that used it or a subclass of it;</li>
+ * <li>a change consisting only of {@code By} field declarations selects only the tests that used one of the old locators;</li>
+ * <li>a changed test class selects all of its tests;</li>
+ * <li>tests missing from the index are always selected;</li>
+ * <li>any other change (other main classes such as the driver factory, build files, resources, test infrastructure) selects everything, since coverage
+ * only records page objects and components.</li>
+ * </ul>
+ * On top of that, a random safety sample of the remaining tests is selected, seeded so every shard picks the same sample.
+ *
+ * @author srdjan
+ */
+public class TestSelector {
+
+  private static final String MAIN_SOURCES = "src/main/java/";
+  private static final String TEST_SOURCES = "src/test/java/";
+  private static final Pattern LOCATOR_FIELD = Pattern.compile("\\s*(private|protected|public|static|final|\\s)*By\\s+\\w+\\s*=\\s*(By\\..*);\\s*");
+  private static final Pattern LOCATOR = Pattern.compile("By\\.(\\w+)\\(\\s*\"((?:[^\"\\\\]|\\\\.)*)\"\\s*\\)");
+  private static final Logger LOG = LogManager.getLogger(TestSelector.class.getName());
+
+  private final CoverageIndex index;
+  private final Set<String> ignoredFiles;
+  private final double sampleRate;
+  private final long seed;
+
+  /**
+   * @param index the coverage index
+   * @param ignoredFiles files whose changes do not affect any test, such as the index itself
+   * @param sampleRate the fraction of unaffected tests to run anyway
+   * @param seed the seed of the safety sample
+   */
+  public TestSelector(CoverageIndex index, Set<String> ignoredFiles, double sampleRate, long seed) {
+    this.index = index;
+    this.ignoredFiles = ignoredFiles;
+    this.sampleRate = sampleRate;
+    this.seed = seed;
+  }
+
+  /**
+   * Selects the tests to run.
+   *
+   * @param testIds the ids of all tests in the suite
+   * @param changes the changed files
+   * @return the ids of the tests to run
+   */
+  public Set<String> select(Collection<String> testIds, List<GitDiff.FileChange> changes) {
+    Set<String> testClasses = new HashSet<>();
+    for (String testId : testIds) {
+      testClasses.add(testClass(testId));
+    }
+    Set<String> changedClasses = new HashSet<>();
+    Set<String> changedLocators = new HashSet<>();
+    Set<String> changedTestClasses = new HashSet<>();
+    for (GitDiff.FileChange change : changes) {
+      String path = change.getPath();
+      if (ignoredFiles.contains(path)) {
+        continue;
+      }
+      if (path.startsWith(MAIN_SOURCES) && path.endsWith(".java") && isPageObject(className(path, MAIN_SOURCES))) {
+        String className = className(path, MAIN_SOURCES);
+        Set<String> locators = changedLocators(change);
+        if (locators != null) {
+          LOG.debug("Only locators changed in {}: {}", className, locators);
+          changedLocators.addAll(locators);
+        } else {
+          changedClasses.add(className);
+        }
+      } else if (path.startsWith(TEST_SOURCES) && path.endsWith(".java") && testClasses.contains(className(path, TEST_SOURCES))) {
+        changedTestClasses.add(className(path, TEST_SOURCES));
+      } else {
+        LOG.info("Change to {} can affect any test, selecting all", path);
+        return new LinkedHashSet<>(testIds);
+      }
+    }
+
+    Set<String> selected = new TreeSet<>();
+    List<String> unaffected = new ArrayList<>();
+    for (String testId : new TreeSet<>(testIds)) {
+      if (!index.contains(testId) || changedTestClasses.contains(testClass(testId)) || usesAny(index.getClasses(testId), changedClasses)
+          || !Collections.disjoint(index.getLocators(testId), changedLocators)) {
+        selected.add(testId);
+      } else {
+        unaffected.add(testId);
+      }
+    }
+    Collections.shuffle(unaffected, new Random(seed));
+    List<String> sample = unaffected.subList(0, (int) Math.ceil(unaffected.size() * sampleRate));
+    selected.addAll(sample);
+    LOG.info("Selected {} affected and {} sampled of {} tests", selected.size() - sample.size(), sample.size(), testIds.size());
+    return selected;
+  }
+
+  /**
+   * Checks if the given class is recorded by the coverage. A class that no longer exists can not be checked, so it counts as anything else.
+   */
+  private static boolean isPageObject(String className) {
+    try {
+      return SeleniumSupport.class.isAssignableFrom(Class.forName(className, false, TestSelector.class.getClassLoader()));
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  private boolean usesAny(Set<String> usedClasses, Set<String> changedClasses) {
+    for (String usedClass : usedClasses) {
+      int nested = usedClass.indexOf('$');
+      if (changedClasses.contains(nested < 0 ? usedClass : usedClass.substring(0, nested))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the locators a change replaced, if the change consists of {@code By} field declarations only.
+   *
+   * @return the old locators as recorded by the coverage, or {@code null} if other code changed too
+   */
+  private Set<String> changedLocators(GitDiff.FileChange change) {
+    Set<String> locators = new HashSet<>();
+    List<String> lines = new ArrayList<>(change.getRemoved());
+    lines.addAll(change.getAdded());
+    for (String line : lines) {
+      if (line.trim().isEmpty()) {
+        continue;
+      }
+      Matcher field = LOCATOR_FIELD.matcher(line);
+      if (!field.matches()) {
+        return null;
+      }
+    }
+    for (String line : change.getRemoved()) {
+      Matcher locator = LOCATOR.matcher(line);
+      if (locator.find()) {
+        String recorded = toRecordedLocator(locator.group(1), locator.group(2).replaceAll("\\\\(.)", "$1"));
+        if (recorded == null) {
+          return null;
+        }
+        locators.add(recorded);
+      } else if (!line.trim().isEmpty()) {
+        return null;
+      }
+    }
+    return locators;
+  }
+
+  private String toRecordedLocator(String method, String value) {
+    try {
+      return By.class.getMethod(method, String.class).invoke(null, value).toString();
+    } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+      return null;
+    }
+  }
+
+  private static String className(String path, String sourceRoot) {
+    return path.substring(sourceRoot.length(), path.length() - ".java".length()).replace('/', '.');
+  }
+
+  private static String testClass(String testId) {
+    return testId.substring(0, testId.indexOf('#'));
+  }
+}
@@ -0,0 +1,108 @@
+package base.selection;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests of {@link TestSelector}
+ *
+ * @author srdjan
+ */
+public class TestSelectorTest {
+
+  private static final List<String> TESTS = Arrays.asList("testclasses.Tests#home", "testclasses.Tests#dashboard", "testclasses.Other#home",
+      "testclasses.Other#poll", "testclasses.Other#unknown");
+
+  private CoverageIndex index;
+
+  @BeforeClass
+  public void createIndex() throws IOException {
+    Path file = Files.createTempFile("test-coverage", ".json");
+    file.toFile().deleteOnExit();
+    String json = "{"
+        + "\"testclasses.Tests#home\": {\"classes\": [\"application.page.HomePage\", \"application.AbstractPage\", \"application.support.SeleniumSupport\"],"
+        + " \"locators\": [\"By.cssSelector: [id='___gatsby']\"]},"
+        + "\"testclasses.Tests#dashboard\": {\"classes\": [\"application.page.DashboardPage\", \"application.AbstractPage\"], \"locators\": []},"
+        + "\"testclasses.Other#home\": {\"classes\": [\"application.page.HomePage\", \"application.AbstractPage\"], \"locators\": [\"By.id: other\"]},"
+        + "\"testclasses.Other#poll\": {\"classes\": [\"application.components.panel.CreatePanel$Option\"], \"locators\": []}"
+        + "}";
+    Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+    index = CoverageIndex.load(file);
+  }
+
+  @Test(description = "a changed page object selects the tests that used it or a subclass of it, and tests missing from the index")
+  public void selectsUsersOfChangedPageObject() {
+    Assert.assertEquals(select(change("src/main/java/application/page/HomePage.java", "  void a() {", "  void b() {")),
+        set("testclasses.Tests#home", "testclasses.Other#home", "testclasses.Other#unknown"));
+    Assert.assertEquals(select(change("src/main/java/application/AbstractPage.java", "", "  // comment")),
+        set("testclasses.Tests#home", "testclasses.Tests#dashboard", "testclasses.Other#home", "testclasses.Other#unknown"));
+    Assert.assertEquals(select(change("src/main/java/application/components/panel/CreatePanel.java", "", "  // comment")),
+        set("testclasses.Other#poll", "testclasses.Other#unknown"));
+  }
+
+  @Test(description = "a change of locator fields only selects the tests that used the old locators")
+  public void selectsUsersOfChangedLocators() {
+    GitDiff.FileChange change = change("src/main/java/application/page/HomePage.java",
+        "  private final By PAGE_IDENTIFIER = By.cssSelector(\"[id='___gatsby']\");", "  private final By PAGE_IDENTIFIER = By.cssSelector(\"[id='root']\");");
+    Assert.assertEquals(select(change), set("testclasses.Tests#home", "testclasses.Other#unknown"));
+  }
+
+  @Test(description = "a changed main class that is not a page object selects everything")
+  public void selectsAllForInfrastructureChanges() {
+    Set<String> all = new TreeSet<>(TESTS);
+    Assert.assertEquals(select(change("src/main/java/application/WebDriverFactory.java", "", "  // comment")), all);
+    Assert.assertEquals(select(change("src/main/java/application/support/watchdog/SessionWatchdog.java", "", "  // comment")), all);
+    Assert.assertEquals(select(change("src/main/java/application/support/coverage/CoverageRecorder.java", "", "  // comment")), all);
+    Assert.assertEquals(select(change("src/main/java/application/page/RemovedPage.java", "  // comment", "")), all);
+    Assert.assertEquals(select(change("src/main/java/application/WebDriverFactory.java", "  private final By A = By.id(\"a\");",
+        "  private final By A = By.id(\"b\");")), all);
+    Assert.assertEquals(select(change("pom.xml", "", "<project/>")), all);
+    Assert.assertEquals(select(change("src/test/java/base/AbstractTest.java", "", "  // comment")), all);
+  }
+
+  @Test(description = "a changed test class selects its tests, ignored files select nothing")
+  public void selectsChangedTestClass() {
+    Assert.assertEquals(select(change("src/test/java/testclasses/Tests.java", "", "  // comment"), change("test-coverage.json", "", "{}")),
+        set("testclasses.Tests#home", "testclasses.Tests#dashboard", "testclasses.Other#unknown"));
+  }
+
+  @Test(description = "the safety sample is a seeded share of the unaffected tests")
+  public void samplesUnaffectedTests() {
+    GitDiff.FileChange change = change("src/test/java/testclasses/Tests.java", "", "  // comment");
+    Set<String> sampled = new TestSelector(index, Collections.emptySet(), 0.5, 42).select(TESTS, Collections.singletonList(change));
+    Assert.assertEquals(sampled.size(), 4, "3 affected and 1 of the 2 unaffected tests");
+    Assert.assertTrue(sampled.containsAll(set("testclasses.Tests#home", "testclasses.Tests#dashboard", "testclasses.Other#unknown")));
+    Assert.assertEquals(new TestSelector(index, Collections.emptySet(), 0.5, 42).select(TESTS, Collections.singletonList(change)), sampled);
+  }
+
+  private Set<String> select(GitDiff.FileChange... changes) {
+    return new TestSelector(index, Collections.singleton("test-coverage.json"), 0, 1).select(TESTS, Arrays.asList(changes));
+  }
+
+  private static GitDiff.FileChange change(String path, String removed, String added) {
+    StringBuilder diff = new StringBuilder("diff --git a/").append(path).append(" b/").append(path).append("\n@@ -1 +1 @@\n");
+    if (!removed.isEmpty()) {
+      diff.append('-').append(removed).append('\n');
+    }
+    if (!added.isEmpty()) {
+      diff.append('+').append(added).append('\n');
+    }
+    return new GitDiff(diff.toString()).getChanges().get(0);
+  }
+
+  private static Set<String> set(String... testIds) {
+    return new HashSet<>(Arrays.asList(testIds));
+  }
+}
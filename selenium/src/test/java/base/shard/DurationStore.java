@@ -0,0 +1,161 @@
+package base.shard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import base.SharedFile;
+
+/**
+ * Historical per-test durations, kept in a properties file ({@code testId=millis}). Every run feeds its observed durations back, smoothed with the previous
+ * value so a single slow run does not throw the shard plan off balance.
+ * <p>
+ * A shard must not change the file other shards still plan from, so shards write to their own file, see {@link SharedFile}, which
+ * {@link #collectShards()} folds back into the file once all shards are done.
+ *
+ * @author srdjan
+ */
+public class DurationStore {
+
+  private static final Logger LOG = LogManager.getLogger(DurationStore.class.getName());
+  private static final double SMOOTHING = 0.5;
+
+  private final Path file;
+  private final Path output;
+  private final Map<String, Long> durations = new ConcurrentHashMap<>();
+  private final Map<String, Long> observed = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a store that reads and updates the given file.
+   *
+   * @param file the durations file
+   */
+  public DurationStore(Path file) {
+    this(file, file);
+  }
+
+  /**
+   * Creates a store that reads the given file and saves the durations of the given shard next to it.
+   *
+   * @param file the durations file
+   * @param shardIndex the 0-based index of the shard
+   */
+  public DurationStore(Path file, int shardIndex) {
+    this(file, SharedFile.shardFile(file, shardIndex));
+  }
+
+  private DurationStore(Path file, Path output) {
+    this.file = file;
+    this.output = output;
+    durations.putAll(read(file));
+  }
+
+  /**
+   * Returns the historical duration of the given test.
+   *
+   * @param testId the test id, see {@link Shard#testId(Class, String)}
+   * @return the duration in milliseconds or {@code null} if the test has never been recorded
+   */
+  public Long getDuration(String testId) {
+    return durations.get(testId);
+  }
+
+  /**
+   * Returns the mean of all known durations.
+   *
+   * @param defaultMillis the value to return when nothing is known yet
+   * @return the mean duration in milliseconds
+   */
+  public long getMeanDuration(long defaultMillis) {
+    return (long) durations.values().stream().mapToLong(Long::longValue).average().orElse(defaultMillis);
+  }
+
+  /**
+   * Records the duration observed in this run. Nothing is written until {@link #save()}.
+   *
+   * @param testId the test id
+   * @param millis the observed duration in milliseconds
+   */
+  public void record(String testId, long millis) {
+    LOG.debug("Test {} took {}ms", testId, millis);
+    observed.put(testId, millis);
+  }
+
+  /**
+   * Writes the durations observed in this run. The target file is re-read under a lock first, so JVMs sharing it do not overwrite each other's results.
+   */
+  public synchronized void save() {
+    if (observed.isEmpty()) {
+      return;
+    }
+    try {
+      update(output, values -> observed.forEach((testId, millis) -> {
+        Long previous = durations.get(testId);
+        values.put(testId, previous == null ? millis : Math.round(SMOOTHING * millis + (1 - SMOOTHING) * previous));
+      }));
+      observed.clear();
+      LOG.info("Saved test durations to {}", output);
+    } catch (IOException e) {
+      LOG.warn("Unable to save test durations to {}", output, e);
+    }
+  }
+
+  /**
+   * Folds the files written by all shards into the durations file and deletes them.
+   *
+   * @throws IOException when a file can not be read or written
+   */
+  public void collectShards() throws IOException {
+    for (Path shardFile : SharedFile.shardFiles(file)) {
+      Map<String, Long> shardDurations = read(shardFile);
+      update(file, values -> values.putAll(shardDurations));
+      durations.putAll(shardDurations);
+      Files.delete(shardFile);
+      LOG.info("Collected {} test durations from {}", shardDurations.size(), shardFile);
+    }
+  }
+
+  private void update(Path target, Consumer<Map<String, Long>> change) throws IOException {
+    SharedFile.update(target, this::read, change, this::write);
+  }
+
+  private Map<String, Long> read(Path source) {
+    Map<String, Long> result = new HashMap<>();
+    if (!Files.isRegularFile(source)) {
+      return result;
+    }
+    Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(source)) {
+      properties.load(in);
+    } catch (IOException e) {
+      LOG.warn("Unable to read test durations from {}", source, e);
+      return result;
+    }
+    for (String testId : properties.stringPropertyNames()) {
+      try {
+        result.put(testId, Long.parseLong(properties.getProperty(testId).trim()));
+      } catch (NumberFormatException e) {
+        LOG.info("Ignoring invalid duration '{}' for {}", properties.getProperty(testId), testId);
+      }
+    }
+    return result;
+  }
+
+  private void write(Path target, Map<String, Long> values) throws IOException {
+    Properties properties = new Properties();
+    values.forEach((testId, millis) -> properties.setProperty(testId, String.valueOf(millis)));
+    try (OutputStream out = Files.newOutputStream(target)) {
+      properties.store(out, "Test durations in milliseconds");
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package base.shard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import base.SharedFile;
+
+/**
+ * Unit tests of {@link DurationStore}
+ *
+ * @author srdjan
+ */
+public class DurationStoreTest {
+
+  private Path directory;
+  private Path file;
+
+  @BeforeMethod
+  public void createFile() throws IOException {
+    directory = Files.createTempDirectory("durations");
+    file = directory.resolve("test-durations.properties");
+    try (Writer writer = Files.newBufferedWriter(file)) {
+      writer.write("t#a=100\nt#b=invalid\n");
+    }
+  }
+
+  @AfterMethod(alwaysRun = true)
+  public void deleteFiles() throws IOException {
+    try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory)) {
+      for (Path path : paths) {
+        Files.delete(path);
+      }
+    }
+    Files.delete(directory);
+  }
+
+  @Test(description = "observed durations are smoothed with the previous value, new tests are taken as observed")
+  public void smoothsObservedDurations() throws IOException {
+    DurationStore store = new DurationStore(file);
+    Assert.assertEquals(store.getDuration("t#a"), Long.valueOf(100));
+    Assert.assertNull(store.getDuration("t#b"));
+
+    store.record("t#a", 200);
+    store.record("t#c", 30);
+    store.save();
+
+    Properties saved = load(file);
+    Assert.assertEquals(saved.getProperty("t#a"), "150");
+    Assert.assertEquals(saved.getProperty("t#c"), "30");
+  }
+
+  @Test(description = "shards save next to the durations file, which is only changed when the shards are collected")
+  public void collectsShardFiles() throws IOException {
+    DurationStore shard = new DurationStore(file, 1);
+    shard.record("t#a", 300);
+    shard.save();
+    Path shardFile = SharedFile.shardFile(file, 1);
+    Assert.assertEquals(load(shardFile).getProperty("t#a"), "200");
+    Assert.assertEquals(load(file).getProperty("t#a"), "100");
+    Path unrelated = directory.resolve("test-durations.properties.shard-old");
+    Files.createFile(unrelated);
+
+    DurationStore store = new DurationStore(file);
+    store.collectShards();
+
+    Assert.assertEquals(load(file).getProperty("t#a"), "200");
+    Assert.assertEquals(store.getDuration("t#a"), Long.valueOf(200));
+    Assert.assertFalse(Files.exists(shardFile));
+    Assert.assertTrue(Files.exists(unrelated));
+  }
+
+  private Properties load(Path source) throws IOException {
+    Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(source)) {
+      properties.load(in);
+    }
+    return properties;
+  }
+}
@@ -0,0 +1,172 @@
+package base.shard;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import base.selection.CoverageIndex;
+
+/**
+ * Merges the {@code testng-results.xml} files of all shards into one report. Tests a shard skipped because they ran on another shard are left out, so every
+ * test appears once with the result of the shard that actually ran it. A test that was claimed but did not run on any shard, e.g. because the claiming shard
+ * crashed, stays in the report as skipped.
+ * <p>
+ * Usage: {@code ResultMerger [--durations test-durations.properties] [--coverage test-coverage.json] <output.xml> <shard-1/testng-results.xml> ...}. With
+ * {@code --durations} and {@code --coverage} the durations and coverage recorded by the shards are folded into the given files as well, see
+ * {@link DurationStore#collectShards()} and {@link CoverageIndex#collectShards()}.
+ *
+ * @author srdjan
+ */
+public class ResultMerger {
+
+  private static final Logger LOG = LogManager.getLogger(ResultMerger.class.getName());
+  private static final String STATUS_SKIP = "SKIP";
+
+  public static void main(String[] args) throws Exception {
+    int first = 0;
+    while (args.length > first + 1 && args[first].startsWith("--")) {
+      if ("--durations".equals(args[first])) {
+        new DurationStore(Paths.get(args[first + 1])).collectShards();
+      } else if ("--coverage".equals(args[first])) {
+        CoverageIndex.load(Paths.get(args[first + 1])).collectShards();
+      } else {
+        throw new IllegalArgumentException("Unknown option " + args[first]);
+      }
+      first += 2;
+    }
+    if (args.length - first < 2) {
+      throw new IllegalArgumentException("Usage: ResultMerger [--durations <file>] [--coverage <file>] <output.xml> <testng-results.xml>...");
+    }
+    List<File> inputs = new ArrayList<>();
+    for (int i = first + 1; i < args.length; i++) {
+      inputs.add(new File(args[i]));
+    }
+    new ResultMerger().merge(inputs, new File(args[first]));
+  }
+
+  /**
+   * Merges the given TestNG result files.
+   *
+   * @param inputs the {@code testng-results.xml} file of every shard
+   * @param output the file to write the merged results to
+   * @throws Exception when a file can not be read or written
+   */
+  public void merge(List<File> inputs, File output) throws Exception {
+    DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+    List<Document> documents = new ArrayList<>();
+    for (File input : inputs) {
+      documents.add(builder.parse(input));
+    }
+
+    Set<String> ran = new HashSet<>();
+    for (Document document : documents) {
+      for (Element method : testMethods(document)) {
+        if (!isConfig(method) && !STATUS_SKIP.equals(method.getAttribute("status"))) {
+          ran.add(key(method));
+        }
+      }
+    }
+
+    Document merged = builder.newDocument();
+    Element root = merged.createElement("testng-results");
+    merged.appendChild(root);
+    Element reporterOutput = merged.createElement("reporter-output");
+    root.appendChild(reporterOutput);
+    int ignored = 0;
+    Set<String> keptSkips = new HashSet<>();
+    for (Document document : documents) {
+      for (Element method : testMethods(document)) {
+        if (isConfig(method) || !STATUS_SKIP.equals(method.getAttribute("status"))) {
+          continue;
+        }
+        if (ran.contains(key(method)) || !keptSkips.add(key(method))) {
+          method.getParentNode().removeChild(method);
+        } else if (isClaimedElsewhere(method)) {
+          LOG.warn("Test {} was claimed by a shard but did not run on any shard", key(method));
+        }
+      }
+      Element results = document.getDocumentElement();
+      ignored += parseInt(results.getAttribute("ignored"));
+      for (Node child = results.getFirstChild(); child != null; child = child.getNextSibling()) {
+        if ("reporter-output".equals(child.getNodeName())) {
+          for (Node line = child.getFirstChild(); line != null; line = line.getNextSibling()) {
+            reporterOutput.appendChild(merged.importNode(line, true));
+          }
+        } else if ("suite".equals(child.getNodeName())) {
+          root.appendChild(merged.importNode(child, true));
+        }
+      }
+    }
+
+    int passed = 0;
+    int failed = 0;
+    int skipped = 0;
+    for (Element method : testMethods(merged)) {
+      if (!isConfig(method)) {
+        switch (method.getAttribute("status")) {
+          case "PASS":
+            passed++;
+            break;
+          case "FAIL":
+            failed++;
+            break;
+          default:
+            skipped++;
+        }
+      }
+    }
+    root.setAttribute("total", String.valueOf(passed + failed + skipped));
+    root.setAttribute("passed", String.valueOf(passed));
+    root.setAttribute("failed", String.valueOf(failed));
+    root.setAttribute("skipped", String.valueOf(skipped));
+    root.setAttribute("ignored", String.valueOf(ignored));
+
+    Transformer transformer = TransformerFactory.newInstance().newTransformer();
+    transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+    transformer.transform(new DOMSource(merged), new StreamResult(output));
+  }
+
+  private boolean isClaimedElsewhere(Element method) {
+    NodeList messages = method.getElementsByTagName("message");
+    return messages.getLength() > 0 && messages.item(0).getTextContent().contains(ShardClaims.CLAIMED_ELSEWHERE);
+  }
+
+  private List<Element> testMethods(Document document) {
+    NodeList nodes = document.getElementsByTagName("test-method");
+    List<Element> methods = new ArrayList<>();
+    for (int i = 0; i < nodes.getLength(); i++) {
+      methods.add((Element) nodes.item(i));
+    }
+    return methods;
+  }
+
+  private String key(Element method) {
+    return ((Element) method.getParentNode()).getAttribute("name") + "#" + method.getAttribute("name");
+  }
+
+  private boolean isConfig(Element method) {
+    return "true".equals(method.getAttribute("is-config"));
+  }
+
+  private int parseInt(String value) {
+    return value.isEmpty() ? 0 : Integer.parseInt(value);
+  }
+}
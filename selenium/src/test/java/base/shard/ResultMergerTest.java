@@ -0,0 +1,62 @@
+package base.shard;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Unit tests of {@link ResultMerger}
+ *
+ * @author srdjan
+ */
+public class ResultMergerTest {
+
+  @Test(description = "skips of tests that ran on another shard are dropped, claimed tests that ran nowhere are kept, and the totals recounted")
+  public void dropsTestsClaimedElsewhere() throws Exception {
+    File first = results("<test-method name=\"setUp\" status=\"PASS\" is-config=\"true\"/>",
+        "<test-method name=\"a\" status=\"PASS\"/>",
+        "<test-method name=\"c\" status=\"SKIP\"/>",
+        "<test-method name=\"b\" status=\"SKIP\"><exception class=\"org.testng.SkipException\"><message><![CDATA[" + ShardClaims.CLAIMED_ELSEWHERE
+            + "]]></message></exception></test-method>",
+        "<test-method name=\"d\" status=\"SKIP\"><exception class=\"org.testng.SkipException\"><message><![CDATA[" + ShardClaims.CLAIMED_ELSEWHERE
+            + "]]></message></exception></test-method>");
+    File second = results("<test-method name=\"a\" status=\"SKIP\"/>",
+        "<test-method name=\"b\" status=\"FAIL\"/>",
+        "<test-method name=\"c\" status=\"SKIP\"/>");
+    File output = File.createTempFile("testng-results", ".xml");
+    output.deleteOnExit();
+
+    new ResultMerger().merge(Arrays.asList(first, second), output);
+
+    Element root = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(output).getDocumentElement();
+    Assert.assertEquals(root.getAttribute("total"), "4");
+    Assert.assertEquals(root.getAttribute("passed"), "1");
+    Assert.assertEquals(root.getAttribute("failed"), "1");
+    Assert.assertEquals(root.getAttribute("skipped"), "2");
+    Assert.assertEquals(root.getAttribute("ignored"), "2");
+    NodeList methods = root.getElementsByTagName("test-method");
+    Assert.assertEquals(methods.getLength(), 5, "The config method and a, b, c and d remain");
+  }
+
+  private File results(String... methods) throws IOException {
+    StringBuilder xml = new StringBuilder("<testng-results ignored=\"1\"><reporter-output/><suite name=\"suite\"><test name=\"test\">")
+        .append("<class name=\"testclasses.Tests\">");
+    for (String method : methods) {
+      xml.append(method);
+    }
+    xml.append("</class></test></suite></testng-results>");
+    File file = File.createTempFile("testng-results", ".xml");
+    file.deleteOnExit();
+    Files.write(file.toPath(), xml.toString().getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+}
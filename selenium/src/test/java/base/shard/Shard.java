@@ -0,0 +1,112 @@
+package base.shard;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shard of the suite this JVM runs. Configured with system properties:
+ * <ul>
+ * <li>{@code shard.count} - number of shards, defaults to 1 (no sharding)</li>
+ * <li>{@code shard.index} - 0-based index of this shard, defaults to 0</li>
+ * <li>{@code shard.durations} - the durations file, defaults to {@code test-durations.properties}</li>
+ * <li>{@code shard.claims} - shared directory for work-stealing of tests without a recorded duration; when not set such tests are planned with the mean
+ * duration</li>
+ * </ul>
+ * For example {@code mvn test -Dshard.count=3 -Dshard.index=1 -Dshard.claims=/shared/claims/$BUILD_ID}. Once all shards are done, {@link ResultMerger}
+ * combines their reports and durations.
+ *
+ * @author srdjan
+ */
+public class Shard {
+
+  public static final String COUNT_PROPERTY = "shard.count";
+  public static final String INDEX_PROPERTY = "shard.index";
+  public static final String DURATIONS_PROPERTY = "shard.durations";
+  public static final String CLAIMS_PROPERTY = "shard.claims";
+
+  private static final Shard instance = new Shard();
+
+  private final int count;
+  private final int index;
+  private final Path durationsFile;
+  private final DurationStore durations;
+  private final ShardClaims claims;
+  private final Set<String> stealable = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+  private Shard() {
+    count = Integer.getInteger(COUNT_PROPERTY, 1);
+    index = Integer.getInteger(INDEX_PROPERTY, 0);
+    if (index < 0 || index >= count) {
+      throw new IllegalStateException(String.format("Shard index %s is not within shard count %s", index, count));
+    }
+    durationsFile = Paths.get(System.getProperty(DURATIONS_PROPERTY, "test-durations.properties"));
+    durations = count > 1 ? new DurationStore(durationsFile, index) : new DurationStore(durationsFile);
+    String claimsDirectory = System.getProperty(CLAIMS_PROPERTY);
+    claims = claimsDirectory != null && count > 1 ? new ShardClaims(Paths.get(claimsDirectory), index) : null;
+  }
+
+  public static Shard getInstance() {
+    return instance;
+  }
+
+  /**
+   * Returns the id used for a test method in the durations file and the shard plan.
+   *
+   * @param testClass the (real) test class
+   * @param methodName the test method name
+   * @return the test id
+   */
+  public static String testId(Class<?> testClass, String methodName) {
+    return testClass.getName() + "#" + methodName;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public boolean isSharded() {
+    return count > 1;
+  }
+
+  public Path getDurationsFile() {
+    return durationsFile;
+  }
+
+  public DurationStore getDurations() {
+    return durations;
+  }
+
+  public ShardPlanner getPlanner() {
+    return new ShardPlanner(durations, count);
+  }
+
+  /**
+   * Checks if work-stealing is enabled, i.e. a claims directory is configured.
+   *
+   * @return {@code true} if tests without a duration are claimed at runtime
+   */
+  public boolean isStealing() {
+    return claims != null;
+  }
+
+  void addStealable(Set<String> testIds) {
+    stealable.addAll(testIds);
+  }
+
+  /**
+   * Claims the given test for this shard if it is a stealable one. Planned tests are always run.
+   *
+   * @param testId the test id
+   * @return {@code true} if this shard should run the test, {@code false} otherwise
+   */
+  public boolean claim(String testId) {
+    return !stealable.contains(testId) || claims.claim(testId);
+  }
+}
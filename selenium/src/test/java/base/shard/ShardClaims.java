@@ -0,0 +1,52 @@
+package base.shard;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Work-stealing claims for tests that are not in the shard plan. Every shard gets these tests at the end of its queue, and the first shard to create the
+ * claim file for a test runs it; the others skip it. The directory must be shared by all shards (local disk or a shared mount for CI agents) and must be empty
+ * at the start of each pipeline run.
+ *
+ * @author srdjan
+ */
+public class ShardClaims {
+
+  public static final String CLAIMED_ELSEWHERE = "Test claimed by another shard";
+  private static final Logger LOG = LogManager.getLogger(ShardClaims.class.getName());
+
+  private final Path directory;
+  private final int shardIndex;
+
+  public ShardClaims(Path directory, int shardIndex) {
+    this.directory = directory;
+    this.shardIndex = shardIndex;
+  }
+
+  /**
+   * Tries to claim the given test for this shard.
+   *
+   * @param testId the test id
+   * @return {@code true} if this shard should run the test, {@code false} if another shard already claimed it
+   */
+  public boolean claim(String testId) {
+    Path claim = directory.resolve(testId.replaceAll("[^A-Za-z0-9._-]", "_") + ".claim");
+    try {
+      Files.createDirectories(directory);
+      Files.write(Files.createFile(claim), String.valueOf(shardIndex).getBytes(StandardCharsets.UTF_8));
+      LOG.info("Shard {} claimed {}", shardIndex, testId);
+      return true;
+    } catch (FileAlreadyExistsException e) {
+      LOG.info("{} already claimed by another shard", testId);
+      return false;
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Unable to claim %s in %s", testId, directory), e);
+    }
+  }
+}
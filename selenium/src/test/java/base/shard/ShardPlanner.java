@@ -0,0 +1,123 @@
+package base.shard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Splits tests over shards so that every shard takes about the same time. Uses the longest-processing-time-first heuristic: tests are sorted by their
+ * historical duration and each one goes to the shard with the least work so far.
+ * <p>
+ * The plan is deterministic, so every shard can compute it on its own as long as all of them read the same durations file.
+ *
+ * @author srdjan
+ */
+public class ShardPlanner {
+
+  static final long DEFAULT_DURATION = 60_000;
+
+  private final DurationStore durations;
+  private final int shardCount;
+
+  public ShardPlanner(DurationStore durations, int shardCount) {
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("Shard count must be at least 1 but was " + shardCount);
+    }
+    this.durations = durations;
+    this.shardCount = shardCount;
+  }
+
+  /**
+   * Plans the given tests.
+   *
+   * @param testIds the ids of all tests in the suite
+   * @param stealUnknown {@code true} to leave tests without a recorded duration out of the plan so shards can claim them at runtime, {@code false} to plan them
+   *          with the mean duration
+   * @return the plan
+   */
+  public ShardPlan plan(Collection<String> testIds, boolean stealUnknown) {
+    long estimate = durations.getMeanDuration(DEFAULT_DURATION);
+    List<String> planned = new ArrayList<>();
+    Set<String> stealable = new LinkedHashSet<>();
+    for (String testId : new TreeSet<>(testIds)) {
+      if (stealUnknown && durations.getDuration(testId) == null) {
+        stealable.add(testId);
+      } else {
+        planned.add(testId);
+      }
+    }
+    planned.sort(Comparator.comparingLong((String testId) -> duration(testId, estimate)).reversed().thenComparing(Comparator.naturalOrder()));
+
+    List<List<String>> shards = new ArrayList<>();
+    long[] loads = new long[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards.add(new ArrayList<>());
+    }
+    for (String testId : planned) {
+      int lightest = 0;
+      for (int i = 1; i < shardCount; i++) {
+        if (loads[i] < loads[lightest]) {
+          lightest = i;
+        }
+      }
+      shards.get(lightest).add(testId);
+      loads[lightest] += duration(testId, estimate);
+    }
+    return new ShardPlan(shards, loads, stealable);
+  }
+
+  private long duration(String testId, long estimate) {
+    Long duration = durations.getDuration(testId);
+    return duration != null ? duration : estimate;
+  }
+
+  /**
+   * Result of {@link ShardPlanner#plan(Collection, boolean)}.
+   */
+  public static class ShardPlan {
+
+    private final List<List<String>> shards;
+    private final long[] loads;
+    private final Set<String> stealable;
+
+    ShardPlan(List<List<String>> shards, long[] loads, Set<String> stealable) {
+      this.shards = shards;
+      this.loads = loads;
+      this.stealable = stealable;
+    }
+
+    /**
+     * Returns the tests assigned to the given shard, longest first.
+     *
+     * @param index the 0-based shard index
+     * @return the test ids
+     */
+    public List<String> getShard(int index) {
+      return Collections.unmodifiableList(shards.get(index));
+    }
+
+    /**
+     * Returns the expected duration of the given shard, not counting stealable tests.
+     *
+     * @param index the 0-based shard index
+     * @return the duration in milliseconds
+     */
+    public long getLoad(int index) {
+      return loads[index];
+    }
+
+    /**
+     * Returns the tests every shard may run, whichever shard claims them first.
+     *
+     * @return the test ids
+     */
+    public Set<String> getStealable() {
+      return Collections.unmodifiableSet(stealable);
+    }
+  }
+}
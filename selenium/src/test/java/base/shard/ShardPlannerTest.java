@@ -0,0 +1,81 @@
+package base.shard;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests of {@link ShardPlanner}
+ *
+ * @author srdjan
+ */
+public class ShardPlannerTest {
+
+  private static final List<String> TESTS = Arrays.asList("t#a", "t#b", "t#c", "t#d", "t#e");
+
+  @Test(description = "tests go longest first to the shard with the least work so far")
+  public void assignsLongestProcessingTimeFirst() throws IOException {
+    ShardPlanner.ShardPlan plan = new ShardPlanner(durations("t#a=100", "t#b=90", "t#c=50", "t#d=40", "t#e=10"), 2).plan(TESTS, false);
+
+    Assert.assertEquals(plan.getShard(0), Arrays.asList("t#a", "t#d", "t#e"));
+    Assert.assertEquals(plan.getShard(1), Arrays.asList("t#b", "t#c"));
+    Assert.assertEquals(plan.getLoad(0), 150);
+    Assert.assertEquals(plan.getLoad(1), 140);
+    Assert.assertTrue(plan.getStealable().isEmpty());
+  }
+
+  @Test(description = "every shard computes the same plan whatever order TestNG lists the tests in")
+  public void planIsDeterministic() throws IOException {
+    DurationStore durations = durations("t#a=10", "t#b=10", "t#c=10", "t#d=10");
+    ShardPlanner planner = new ShardPlanner(durations, 3);
+    ShardPlanner.ShardPlan expected = planner.plan(TESTS, false);
+    List<String> shuffled = new ArrayList<>(TESTS);
+    for (int seed = 0; seed < 10; seed++) {
+      Collections.shuffle(shuffled, new Random(seed));
+      ShardPlanner.ShardPlan plan = new ShardPlanner(durations, 3).plan(shuffled, false);
+      for (int shard = 0; shard < 3; shard++) {
+        Assert.assertEquals(plan.getShard(shard), expected.getShard(shard), "Shard " + shard + " with seed " + seed);
+      }
+    }
+  }
+
+  @Test(description = "tests without a recorded duration are stealable or planned with the mean duration")
+  public void handlesUnknownTests() throws IOException {
+    DurationStore durations = durations("t#a=100", "t#b=20");
+    List<String> tests = Arrays.asList("t#a", "t#b", "t#new");
+
+    ShardPlanner.ShardPlan stealing = new ShardPlanner(durations, 2).plan(tests, true);
+    Assert.assertEquals(stealing.getStealable(), Collections.singleton("t#new"));
+    Assert.assertEquals(stealing.getLoad(0) + stealing.getLoad(1), 120);
+
+    ShardPlanner.ShardPlan planned = new ShardPlanner(durations, 2).plan(tests, false);
+    Assert.assertTrue(planned.getStealable().isEmpty());
+    Assert.assertEquals(planned.getShard(1), Arrays.asList("t#new", "t#b"));
+    Assert.assertEquals(planned.getLoad(1), 80);
+  }
+
+  @Test(description = "a plan needs at least one shard", expectedExceptions = IllegalArgumentException.class)
+  public void rejectsInvalidShardCount() throws IOException {
+    new ShardPlanner(durations(), 0);
+  }
+
+  static DurationStore durations(String... lines) throws IOException {
+    Path file = Files.createTempFile("test-durations", ".properties");
+    file.toFile().deleteOnExit();
+    try (Writer writer = Files.newBufferedWriter(file)) {
+      for (String line : lines) {
+        writer.write(line + "\n");
+      }
+    }
+    return new DurationStore(file);
+  }
+}
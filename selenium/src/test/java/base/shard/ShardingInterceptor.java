@@ -0,0 +1,60 @@
+package base.shard;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+
+import base.AbstractTest;
+
+/**
+ * Keeps only the tests planned for this {@link Shard}, longest first, followed by the stealable ones. Does nothing when the suite is not sharded.
+ * <p>
+ * Only browser tests, i.e. subclasses of {@link AbstractTest}, are planned. They are the ones that record durations and claim stealable tests. Other tests,
+ * such as unit tests, are run by the first shard only.
+ *
+ * @author srdjan
+ */
+public class ShardingInterceptor implements IMethodInterceptor {
+
+  private static final Logger LOG = LogManager.getLogger(ShardingInterceptor.class.getName());
+
+  @Override
+  public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+    Shard shard = Shard.getInstance();
+    if (!shard.isSharded()) {
+      return methods;
+    }
+    Map<String, List<IMethodInstance>> byTestId = new LinkedHashMap<>();
+    List<IMethodInstance> result = new ArrayList<>();
+    for (IMethodInstance instance : methods) {
+      ITestNGMethod method = instance.getMethod();
+      if (!AbstractTest.class.isAssignableFrom(method.getRealClass())) {
+        if (shard.getIndex() == 0) {
+          result.add(instance);
+        }
+        continue;
+      }
+      byTestId.computeIfAbsent(Shard.testId(method.getRealClass(), method.getMethodName()), testId -> new ArrayList<>()).add(instance);
+    }
+    ShardPlanner.ShardPlan plan = shard.getPlanner().plan(byTestId.keySet(), shard.isStealing());
+    shard.addStealable(plan.getStealable());
+
+    for (String testId : plan.getShard(shard.getIndex())) {
+      result.addAll(byTestId.get(testId));
+    }
+    for (String testId : plan.getStealable()) {
+      result.addAll(byTestId.get(testId));
+    }
+    LOG.info("Shard {}/{} runs {} of {} tests in '{}' ({} stealable), expected {}ms", shard.getIndex() + 1, shard.getCount(), result.size(), methods.size(),
+        context.getName(), plan.getStealable().size(), plan.getLoad(shard.getIndex()));
+    return result;
+  }
+}